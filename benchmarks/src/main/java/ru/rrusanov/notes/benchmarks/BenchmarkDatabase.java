@@ -0,0 +1,170 @@
+package ru.rrusanov.notes.benchmarks;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import liquibase.Contexts;
+import liquibase.LabelExpression;
+import liquibase.Liquibase;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.resource.ClassLoaderResourceAccessor;
+import org.hibernate.cfg.AvailableSettings;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import ru.rrusanov.notes.domain.HashTag;
+import ru.rrusanov.notes.domain.Note;
+import ru.rrusanov.notes.store.Hibernate;
+import ru.rrusanov.notes.store.TagCache;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe benchmark database shared by store benchmarks of one trial.
+ * Schema is migrated by Liquibase and missing notes are seeded before the trial,
+ * so the seeded database is reused by later runs. Connection is set by system
+ * properties notes.db.url, notes.db.username and notes.db.password, the database
+ * itself must exist.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkDatabase {
+    /**
+     * Number of generated notes in database.
+     */
+    @Param("10000")
+    public int notes;
+    /**
+     * Whether second-level and query cache of the store is enabled.
+     */
+    @Param("false")
+    public boolean cache;
+    private HikariDataSource dataSource;
+    private Hibernate store;
+    private long[] noteIds;
+    private final List<Long> tagIds = new ArrayList<>();
+    private final Zipf tagRanks = new Zipf(Seed.TAGS, 1.1);
+
+    /**
+     * The method migrate schema, seed missing notes and open the store.
+     * @throws Exception If database is not available.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        final HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(System.getProperty("notes.db.url", "jdbc:postgresql://127.0.0.1:5432/notes_bench"));
+        config.setUsername(System.getProperty("notes.db.username", "postgres"));
+        config.setPassword(System.getProperty("notes.db.password", "password"));
+        config.setMaximumPoolSize(Integer.getInteger("notes.db.pool-size", 10));
+        this.dataSource = new HikariDataSource(config);
+        migrate(dataSource);
+        // JAXB reading hibernate.cfg.xml can not inject accessor classes on recent JDKs from plain jar
+        System.setProperty("com.sun.xml.bind.v2.bytecode.ClassTailor.noOptimize", "true");
+        final Map<String, Object> settings = new HashMap<>();
+        if (cache) {
+            settings.putAll(Hibernate.secondLevelCache("ehcache.xml"));
+        }
+        settings.put(AvailableSettings.SHOW_SQL, false);
+        settings.put(AvailableSettings.FORMAT_SQL, false);
+        settings.put(AvailableSettings.USE_SQL_COMMENTS, false);
+        this.store = new Hibernate(dataSource, new TagCache(10000), settings);
+        this.seed();
+        final List<HashTag> titles = new ArrayList<>();
+        for (int rank = 0; rank < Seed.TAGS; rank++) {
+            titles.add(HashTag.of(null, Seed.tagTitle(rank)));
+        }
+        for (HashTag tag : store.resolveTags(titles)) {
+            tagIds.add(tag.getId());
+        }
+    }
+
+    /**
+     * The method close the store and the pool.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        store.close();
+        dataSource.close();
+    }
+
+    /**
+     * @return Store on benchmark database.
+     */
+    public Hibernate store() {
+        return store;
+    }
+
+    /**
+     * @param random Source of randomness.
+     * @return Id of random generated note.
+     */
+    public long noteId(Random random) {
+        return noteIds[random.nextInt(noteIds.length)];
+    }
+
+    /**
+     * @param random Source of randomness.
+     * @return Id of generated tag, popular tags are picked more often.
+     */
+    public long tagId(Random random) {
+        return tagIds.get(tagRanks.next(random));
+    }
+
+    /**
+     * The method apply Liquibase change log of the application.
+     * @param ds Data source.
+     * @throws Exception If migration fails.
+     */
+    public static void migrate(DataSource ds) throws Exception {
+        try (Connection connection = ds.getConnection()) {
+            new Liquibase("liquibase-changeLog.xml", new ClassLoaderResourceAccessor(),
+                    new JdbcConnection(connection)).update(new Contexts(), new LabelExpression());
+        }
+    }
+
+    /**
+     * The method insert notes missing up to the requested number and load ids of generated notes.
+     * @throws SQLException If database is not available.
+     */
+    private void seed() throws SQLException {
+        int existing = this.generatedIds().length;
+        final Seed seed = new Seed(existing);
+        while (existing < notes) {
+            final List<Note> chunk = new ArrayList<>();
+            for (int i = 0; i < Math.min(1000, notes - existing); i++) {
+                chunk.add(seed.nextNote());
+            }
+            store.createNotes(chunk);
+            existing += chunk.size();
+        }
+        this.noteIds = this.generatedIds();
+    }
+
+    private long[] generatedIds() throws SQLException {
+        final List<Long> ids = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "select id from note where topic = ? order by id")) {
+            statement.setString(1, Seed.TOPIC);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                }
+            }
+        }
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+}
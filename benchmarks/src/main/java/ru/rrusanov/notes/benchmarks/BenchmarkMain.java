@@ -0,0 +1,29 @@
+package ru.rrusanov.notes.benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe entry point of benchmarks jar. Runs JMH with passed options,
+ * results are written as json to jmh-result.json unless other format is passed.
+ */
+public class BenchmarkMain {
+    /**
+     * Entry point.
+     * @param args JMH options, see -h.
+     * @throws Exception If JMH fails.
+     */
+    public static void main(String[] args) throws Exception {
+        final List<String> options = new ArrayList<>(Arrays.asList(args));
+        if (!options.contains("-rf")) {
+            options.addAll(Arrays.asList("-rf", "json"));
+        }
+        Main.main(options.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,107 @@
+package ru.rrusanov.notes.benchmarks;
+
+import ru.rrusanov.notes.domain.HashTag;
+import ru.rrusanov.notes.domain.Note;
+
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe generator of benchmark notes. Notes have text of dictionary words,
+ * one to three tags of Zipf distributed popularity and day of creation between
+ * 2000 and 2020. The same seed gives the same notes.
+ */
+public final class Seed {
+    /**
+     * Topic of every generated note, tells generated notes from the rest.
+     */
+    public static final String TOPIC = "benchmark";
+    /**
+     * Number of distinct tags.
+     */
+    public static final int TAGS = 200;
+    /**
+     * Words of note text, each word is in about 1/30 of words of text.
+     */
+    public static final String[] WORDS = {
+            "lorem", "ipsum", "dolor", "amet", "consectetur", "adipiscing", "elit", "sed",
+            "eiusmod", "tempor", "incididunt", "labore", "dolore", "magna", "aliqua", "enim",
+            "minim", "veniam", "quis", "nostrud", "exercitation", "ullamco", "laboris", "nisi",
+            "aliquip", "commodo", "consequat", "duis", "aute", "irure"
+    };
+    private static final long FIRST_DAY = 946684800000L;
+    private static final int DAYS = 7671;
+    private final Random random;
+    private final Zipf tags = new Zipf(TAGS, 1.1);
+
+    /**
+     * @param seed Seed of random generator.
+     */
+    public Seed(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * @param rank Tag rank, 0 for the most used tag.
+     * @return Title of tag.
+     */
+    public static String tagTitle(int rank) {
+        return String.format("bench-tag-%03d", rank);
+    }
+
+    /**
+     * @return Rank of tag by Zipf distribution.
+     */
+    public int nextTagRank() {
+        return tags.next(random);
+    }
+
+    /**
+     * @return Midnight UTC of random day between 2000 and 2020.
+     */
+    public Date nextDate() {
+        return new Date(FIRST_DAY + TimeUnit.DAYS.toMillis(random.nextInt(DAYS)));
+    }
+
+    /**
+     * @return Random dictionary word.
+     */
+    public String nextWord() {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    /**
+     * @return Text of 8 to 40 random words.
+     */
+    public String nextText() {
+        final StringBuilder text = new StringBuilder(nextWord());
+        final int words = 8 + random.nextInt(33);
+        for (int i = 1; i < words; i++) {
+            text.append(' ').append(nextWord());
+        }
+        return text.toString();
+    }
+
+    /**
+     * @return New note with tags not persisted yet, tags have title only.
+     */
+    public Note nextNote() {
+        final Note note = Note.of(nextText(), nextDate());
+        note.setTopic(TOPIC);
+        final Set<String> titles = new LinkedHashSet<>();
+        final int count = 1 + random.nextInt(3);
+        for (int i = 0; i < count; i++) {
+            titles.add(tagTitle(nextTagRank()));
+        }
+        for (String title : titles) {
+            note.addHashTag(HashTag.of(null, title));
+        }
+        return note;
+    }
+}
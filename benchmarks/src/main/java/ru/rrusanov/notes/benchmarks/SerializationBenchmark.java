@@ -0,0 +1,90 @@
+package ru.rrusanov.notes.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.rrusanov.notes.domain.HashTag;
+import ru.rrusanov.notes.domain.Note;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe benchmarks of note serialization without database: Jackson mapper
+ * configured as by Spring MVC, Note.getJson() creating Gson per call and a shared
+ * Gson instance as baseline of getJson().
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class SerializationBenchmark {
+    /**
+     * Number of serialized notes.
+     */
+    @Param({"100", "1000"})
+    public int size;
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+    private final ObjectWriter writer = mapper.writerFor(mapper.getTypeFactory()
+            .constructCollectionType(List.class, Note.class));
+    private final Gson gson = new Gson();
+    private List<Note> notes;
+
+    /**
+     * The method generate notes with ids, as loaded from database.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Seed seed = new Seed(42);
+        notes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final Note note = seed.nextNote();
+            note.setId((long) i);
+            note.setVersion(0L);
+            long tagId = 0;
+            for (HashTag tag : note.getHashTag()) {
+                tag.setId(tagId++);
+            }
+            notes.add(note);
+        }
+    }
+
+    @Benchmark
+    public byte[] jacksonList() throws Exception {
+        return writer.writeValueAsBytes(notes);
+    }
+
+    @Benchmark
+    public void noteGetJson(Blackhole bh) {
+        for (Note note : notes) {
+            bh.consume(note.getJson());
+        }
+    }
+
+    @Benchmark
+    public void sharedGson(Blackhole bh) {
+        for (Note note : notes) {
+            bh.consume(gson.toJson(note));
+        }
+    }
+}
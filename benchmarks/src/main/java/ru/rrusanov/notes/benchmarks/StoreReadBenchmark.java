@@ -0,0 +1,136 @@
+package ru.rrusanov.notes.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.rrusanov.notes.domain.HashTag;
+import ru.rrusanov.notes.domain.Note;
+import ru.rrusanov.notes.domain.jsonmapper.NoteSummary;
+import ru.rrusanov.notes.domain.jsonmapper.TagStat;
+import ru.rrusanov.notes.store.Keyset;
+import ru.rrusanov.notes.store.NoteFilter;
+import ru.rrusanov.notes.store.Page;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe benchmarks of store lookups, one per public find method.
+ * Pages have default size, arguments are picked at random from generated data.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StoreReadBenchmark {
+    private static final int PAGE = Keyset.DEFAULT_LIMIT;
+    private final Random random = new Random(42);
+    private final Seed seed = new Seed(42);
+
+    @Benchmark
+    public Page<Note> findAllNotes(BenchmarkDatabase db) {
+        return db.store().findAllNotes(Keyset.first(PAGE, "desc"), Note.class);
+    }
+
+    @Benchmark
+    public Page<NoteSummary> findAllNoteSummaries(BenchmarkDatabase db) {
+        return db.store().findAllNotes(Keyset.first(PAGE, "desc"), NoteSummary.class);
+    }
+
+    @Benchmark
+    public Note findNoteById(BenchmarkDatabase db) {
+        return db.store().findNoteById(db.noteId(random));
+    }
+
+    @Benchmark
+    public List<Note> findNotesByIds(BenchmarkDatabase db) {
+        final List<Long> ids = new ArrayList<>(PAGE);
+        for (int i = 0; i < PAGE; i++) {
+            ids.add(db.noteId(random));
+        }
+        return db.store().findNotesByIds(ids, Note.class);
+    }
+
+    @Benchmark
+    public Page<Note> findNotesGreaterDate(BenchmarkDatabase db) {
+        return db.store().findNotesGreaterDate(seed.nextDate(), Keyset.first(PAGE, "asc"), Note.class);
+    }
+
+    @Benchmark
+    public Page<Note> findNotesLessDate(BenchmarkDatabase db) {
+        return db.store().findNotesLessDate(seed.nextDate(), Keyset.first(PAGE, "desc"), Note.class);
+    }
+
+    @Benchmark
+    public Page<Note> findNotesEqualDate(BenchmarkDatabase db) {
+        return db.store().findNotesEqualDate(seed.nextDate(), Keyset.first(PAGE, "asc"), Note.class);
+    }
+
+    @Benchmark
+    public Page<Note> findNotesByHashTagId(BenchmarkDatabase db) {
+        return db.store().findNotesByHashTagId(db.tagId(random), Keyset.first(PAGE, "asc"), Note.class);
+    }
+
+    @Benchmark
+    public Page<Note> findNotesWithTextContain(BenchmarkDatabase db) {
+        return db.store().findNotesWithTextContain(seed.nextWord(), Keyset.first(PAGE, "asc"), Note.class);
+    }
+
+    @Benchmark
+    public List<Note> findNotesWithTextContainByRelevance(BenchmarkDatabase db) {
+        return db.store().findNotesWithTextContainByRelevance(seed.nextWord(), PAGE, Note.class);
+    }
+
+    @Benchmark
+    public Page<Note> findNotes(BenchmarkDatabase db) {
+        final Date from = seed.nextDate();
+        final NoteFilter filter = NoteFilter.none()
+                .from(from)
+                .to(new Date(from.getTime() + TimeUnit.DAYS.toMillis(365)))
+                .withAnyTags(Arrays.asList(db.tagId(random), db.tagId(random)))
+                .containing(seed.nextWord());
+        return db.store().findNotes(filter, Keyset.first(PAGE, "asc"), Note.class);
+    }
+
+    @Benchmark
+    public long[] findNoteIdRange(BenchmarkDatabase db) {
+        return db.store().findNoteIdRange();
+    }
+
+    @Benchmark
+    public HashTag findTagById(BenchmarkDatabase db) {
+        return db.store().findTagById(db.tagId(random));
+    }
+
+    @Benchmark
+    public List<HashTag> findAllTags(BenchmarkDatabase db) {
+        return db.store().findAllTags();
+    }
+
+    @Benchmark
+    public List<TagStat> countNotesByTag(BenchmarkDatabase db) {
+        return db.store().countNotesByTag();
+    }
+
+    @Benchmark
+    public List<HashTag> resolveTags(BenchmarkDatabase db) {
+        return db.store().resolveTags(Arrays.asList(
+                HashTag.of(null, Seed.tagTitle(seed.nextTagRank())),
+                HashTag.of(db.tagId(random), null)));
+    }
+}
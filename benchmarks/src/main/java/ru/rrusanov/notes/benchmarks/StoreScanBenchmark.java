@@ -0,0 +1,56 @@
+package ru.rrusanov.notes.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe benchmarks of store methods streaming every note from a cursor.
+ * Time grows with the number of notes, see notes parameter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class StoreScanBenchmark {
+    /**
+     * Midnight UTC of 01.01.2015, newer notes are about a quarter of generated ones.
+     */
+    private static final Date SINCE = new Date(1420070400000L);
+
+    @Benchmark
+    public void forEachNote(BenchmarkDatabase db, Blackhole bh) {
+        db.store().forEachNote(bh::consume);
+    }
+
+    @Benchmark
+    public void exportNotesSince(BenchmarkDatabase db, Blackhole bh) {
+        db.store().exportNotes(SINCE, bh::consume);
+    }
+
+    @Benchmark
+    public void forEachNoteTagLink(BenchmarkDatabase db, Blackhole bh) {
+        db.store().forEachNoteTagLink((note, tag) -> {
+            bh.consume(note);
+            bh.consume(tag);
+        });
+    }
+
+    @Benchmark
+    public void forEachNoteText(BenchmarkDatabase db, Blackhole bh) {
+        final long[] range = db.store().findNoteIdRange();
+        db.store().forEachNoteText(range[0], range[1] + 1, bh::consume);
+    }
+}
@@ -0,0 +1,109 @@
+package ru.rrusanov.notes.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.rrusanov.notes.domain.HashTag;
+import ru.rrusanov.notes.domain.Note;
+import ru.rrusanov.notes.store.NoteFilter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe benchmarks of store changes. Created notes are deleted by the same
+ * invocation, so the database keeps its size: create and delete methods are measured
+ * in pairs. Created notes are dated 2100, after every generated note.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StoreWriteBenchmark {
+    /**
+     * Number of notes created by one batch.
+     */
+    private static final int BATCH = 100;
+    /**
+     * Midnight UTC of 01.01.2100.
+     */
+    private static final Date FUTURE = new Date(4102444800000L);
+    private final Random random = new Random(42);
+    private final Seed seed = new Seed(42);
+    private HashTag retag;
+
+    /**
+     * The method resolve tag added and removed by bulk benchmarks.
+     * @param db Benchmark database.
+     */
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkDatabase db) {
+        retag = db.store().resolveTags(Collections.singletonList(HashTag.of(null, "bench-retag"))).get(0);
+    }
+
+    @Benchmark
+    public Note createModelAndDeleteNote(BenchmarkDatabase db) {
+        final Note note = this.futureNote();
+        db.store().unitOfWork(() -> {
+            note.setHashTag(db.store().resolveTags(note.getHashTag()));
+            return db.store().createModel(note);
+        });
+        return db.store().deleteNote(note.getId());
+    }
+
+    @Benchmark
+    public int createNotesAndDeleteNotes(BenchmarkDatabase db) {
+        final List<Note> notes = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            notes.add(this.futureNote());
+        }
+        db.store().createNotes(notes);
+        return db.store().deleteNotes(NoteFilter.none().from(FUTURE), BATCH);
+    }
+
+    @Benchmark
+    public Note updateNote(BenchmarkDatabase db) {
+        final Note note = Note.of(seed.nextText(), seed.nextDate());
+        note.setId(db.noteId(random));
+        note.setTopic(Seed.TOPIC);
+        return db.store().updateNote(note);
+    }
+
+    @Benchmark
+    public Note changeNote(BenchmarkDatabase db) {
+        final Date date = seed.nextDate();
+        return db.store().changeNote(db.noteId(random), null, note -> note.setDateCreate(date));
+    }
+
+    @Benchmark
+    public int tagNotesAndUntagNotes(BenchmarkDatabase db) {
+        final Date from = seed.nextDate();
+        final NoteFilter filter = NoteFilter.none()
+                .from(from)
+                .to(new Date(from.getTime() + TimeUnit.DAYS.toMillis(30)));
+        return db.store().tagNotes(filter, retag.getId()) + db.store().untagNotes(filter, retag.getId());
+    }
+
+    private Note futureNote() {
+        final Note note = seed.nextNote();
+        note.setDateCreate(FUTURE);
+        return note;
+    }
+}
@@ -0,0 +1,49 @@
+package ru.rrusanov.notes.benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe Zipf distribution of ranks: rank k is picked with probability
+ * proportional to 1 / (k + 1)^exponent, so a few tags are on most notes
+ * and the long tail is rare, as tags are used in practice.
+ */
+public final class Zipf {
+    private final double[] cumulative;
+
+    /**
+     * @param size Number of ranks.
+     * @param exponent Skew, 0 for uniform distribution.
+     */
+    public Zipf(int size, double exponent) {
+        this.cumulative = new double[size];
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += 1 / Math.pow(i + 1, exponent);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cumulative[i] /= sum;
+        }
+    }
+
+    /**
+     * The method pick next rank.
+     * @param random Source of randomness.
+     * @return Rank from 0, the most frequent first.
+     */
+    public int next(Random random) {
+        final int pos = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(pos >= 0 ? pos : -pos - 1, cumulative.length - 1);
+    }
+
+    /**
+     * @return Number of ranks.
+     */
+    public int size() {
+        return cumulative.length;
+    }
+}
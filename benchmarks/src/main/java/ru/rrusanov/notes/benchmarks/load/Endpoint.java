@@ -0,0 +1,41 @@
+package ru.rrusanov.notes.benchmarks.load;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe REST operations driven by the load test. Key is the name used
+ * in request mix, per endpoint budget and report.
+ */
+public enum Endpoint {
+    CREATE("create"),
+    UPDATE("update"),
+    DELETE("delete"),
+    FIND_BY_DATE("findByDate"),
+    FIND_BY_HASH_TAG("findByHashTag"),
+    FIND_BY_TEXT("findByText");
+
+    private final String key;
+
+    Endpoint(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @param key Name of operation, as in request mix.
+     * @return Endpoint with the key.
+     * @throws IllegalArgumentException If there is no such endpoint.
+     */
+    public static Endpoint of(String key) {
+        for (Endpoint endpoint : values()) {
+            if (endpoint.key.equals(key)) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("Unknown endpoint " + key);
+    }
+}
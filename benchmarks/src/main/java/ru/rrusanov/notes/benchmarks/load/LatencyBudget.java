@@ -0,0 +1,74 @@
+package ru.rrusanov.notes.benchmarks.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe maximal latencies at percentiles, written as p99=250,p999=1000
+ * in milliseconds. Digits after p are percentile with point after the second
+ * digit, so p999 is 99.9 percentile.
+ */
+public final class LatencyBudget {
+    private final Map<String, Double> percentiles = new LinkedHashMap<>();
+    private final Map<String, Long> millis = new LinkedHashMap<>();
+
+    private LatencyBudget() {
+    }
+
+    /**
+     * @param spec Comma separated limits, empty for no limits.
+     * @return Budget.
+     * @throws IllegalArgumentException If spec is malformed.
+     */
+    public static LatencyBudget parse(String spec) {
+        final LatencyBudget budget = new LatencyBudget();
+        for (String limit : spec.split(",")) {
+            if (limit.trim().isEmpty()) {
+                continue;
+            }
+            final String[] pair = limit.trim().split("=");
+            if (pair.length != 2 || !pair[0].matches("p\\d{2,}")) {
+                throw new IllegalArgumentException("Malformed latency limit " + limit);
+            }
+            final String digits = pair[0].substring(1);
+            budget.percentiles.put(pair[0], Double.parseDouble(digits.substring(0, 2) + "." + digits.substring(2) + "0"));
+            budget.millis.put(pair[0], Long.parseLong(pair[1]));
+        }
+        return budget;
+    }
+
+    /**
+     * The method compare recorded latencies with the budget.
+     * @param endpoint Measured endpoint.
+     * @param histogram Latencies in microseconds.
+     * @return Exceeded limits, empty if latencies are within the budget or nothing was recorded.
+     */
+    public List<String> check(Endpoint endpoint, Histogram histogram) {
+        final List<String> violations = new ArrayList<>();
+        if (histogram.getTotalCount() == 0) {
+            return violations;
+        }
+        for (Map.Entry<String, Double> percentile : percentiles.entrySet()) {
+            final long limit = millis.get(percentile.getKey());
+            final long actual = histogram.getValueAtPercentile(percentile.getValue());
+            if (actual > TimeUnit.MILLISECONDS.toMicros(limit)) {
+                violations.add(String.format("%s %s %.1f ms > %d ms", endpoint.getKey(), percentile.getKey(),
+                        actual / 1000.0, limit));
+            }
+        }
+        return violations;
+    }
+
+    @Override
+    public String toString() {
+        return millis.toString();
+    }
+}
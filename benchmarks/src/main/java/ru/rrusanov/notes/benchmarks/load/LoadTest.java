@@ -0,0 +1,477 @@
+package ru.rrusanov.notes.benchmarks.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.util.EntityUtils;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.rrusanov.notes.NotesApplication;
+import ru.rrusanov.notes.benchmarks.Seed;
+import ru.rrusanov.notes.controllers.NoteController;
+import ru.rrusanov.notes.domain.Note;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe open-loop HTTP load test of the REST API. Requests are sent at fixed
+ * rate whatever the response time is, and latency of each request is counted from the
+ * moment it was scheduled, so a stalled server is not hidden by requests that were never
+ * sent (coordinated omission). Latencies are recorded per endpoint by HdrHistogram.
+ * Settings are system properties:
+ * notes.load.url - running application, empty to start the application in-process on
+ * a random port with database notes.db.url, notes.db.username and notes.db.password,
+ * program arguments are passed to the application then;
+ * notes.load.notes - number of generated notes, missing ones are created by batch import;
+ * notes.load.rate - requests per second;
+ * notes.load.warmup, notes.load.duration - ISO durations of not measured and measured runs;
+ * notes.load.threads - number of concurrent requests;
+ * notes.load.mix - weights of endpoints as create=10,findByText=25;
+ * notes.load.budget - latency budget as p99=250,p999=1000, notes.load.budget.{endpoint}
+ * overrides it for one endpoint;
+ * notes.load.out - directory of percentile distributions (.hgrm) of endpoints.
+ * The process exits with status 1 when the budget is exceeded.
+ */
+public class LoadTest implements AutoCloseable {
+    /**
+     * Midnight UTC of 01.01.2100, notes created by the test are dated so and deleted after run.
+     */
+    private static final Date FUTURE = new Date(4102444800000L);
+    private static final String DEFAULT_MIX =
+            "create=10,update=10,delete=5,findByDate=25,findByHashTag=25,findByText=25";
+    private static final int CHUNK = 1000;
+    /**
+     * Time to wait for responses after the last request was sent.
+     */
+    private static final Duration DRAIN = Duration.ofMinutes(1);
+    private final String url;
+    private final CloseableHttpClient client;
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+    private final Random random = new Random(42);
+    private final Seed seed = new Seed(System.nanoTime());
+    private final Map<Endpoint, Histogram> latencies = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, LongAdder> errors = new EnumMap<>(Endpoint.class);
+    private final Queue<Long> created = new ConcurrentLinkedQueue<>();
+    private long[] noteIds;
+    private long[] tagIds;
+
+    /**
+     * @param url Application url without trailing slash.
+     * @param threads Number of concurrent requests.
+     */
+    public LoadTest(String url, int threads) {
+        this.url = url;
+        this.client = HttpClients.custom()
+                .setMaxConnTotal(threads)
+                .setMaxConnPerRoute(threads)
+                .build();
+        for (Endpoint endpoint : Endpoint.values()) {
+            latencies.put(endpoint, new ConcurrentHistogram(3));
+            errors.put(endpoint, new LongAdder());
+        }
+    }
+
+    /**
+     * Entry point.
+     * @param args Arguments of in-process application.
+     * @throws Exception If application or seeding fails.
+     */
+    public static void main(String[] args) throws Exception {
+        final int threads = Integer.getInteger("notes.load.threads", 32);
+        final Map<Endpoint, Integer> mix = mix(System.getProperty("notes.load.mix", DEFAULT_MIX));
+        final LatencyBudget budget = LatencyBudget.parse(System.getProperty("notes.load.budget", "p99=250,p999=1000"));
+        String url = System.getProperty("notes.load.url", "");
+        ConfigurableApplicationContext app = null;
+        final List<String> violations = new ArrayList<>();
+        try {
+            if (url.isEmpty()) {
+                app = start(args);
+                url = "http://127.0.0.1:" + app.getEnvironment().getProperty("local.server.port");
+            }
+            try (LoadTest test = new LoadTest(url, threads)) {
+                test.seed(Integer.getInteger("notes.load.notes", 10000));
+                final int unfinished = test.run(mix, Double.parseDouble(System.getProperty("notes.load.rate", "200")),
+                        Duration.parse(System.getProperty("notes.load.warmup", "PT10S")),
+                        Duration.parse(System.getProperty("notes.load.duration", "PT60S")), threads);
+                if (unfinished > 0) {
+                    violations.add(unfinished + " requests were not sent in " + DRAIN + " after the run");
+                }
+                test.cleanUp();
+                test.report(System.out, new File(System.getProperty("notes.load.out", "target/load-result")));
+                for (Endpoint endpoint : mix.keySet()) {
+                    final String own = System.getProperty("notes.load.budget." + endpoint.getKey());
+                    violations.addAll((own == null ? budget : LatencyBudget.parse(own))
+                            .check(endpoint, test.latencies.get(endpoint)));
+                }
+            }
+        } finally {
+            if (app != null) {
+                app.close();
+            }
+        }
+        if (!violations.isEmpty()) {
+            System.err.println("Latency budget exceeded:");
+            violations.forEach(System.err::println);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * The method start the application on random port.
+     * @param args Application arguments, override database settings.
+     * @return Started application.
+     */
+    private static ConfigurableApplicationContext start(String[] args) {
+        // JAXB reading hibernate.cfg.xml can not inject accessor classes on recent JDKs from plain jar
+        System.setProperty("com.sun.xml.bind.v2.bytecode.ClassTailor.noOptimize", "true");
+        final List<String> arguments = new ArrayList<>(Arrays.asList(
+                "--server.port=0",
+                "--spring.datasource.url=" + System.getProperty("notes.db.url",
+                        "jdbc:postgresql://127.0.0.1:5432/notes_bench"),
+                "--spring.datasource.username=" + System.getProperty("notes.db.username", "postgres"),
+                "--spring.datasource.password=" + System.getProperty("notes.db.password", "password")));
+        arguments.addAll(Arrays.asList(args));
+        return new SpringApplicationBuilder(NotesApplication.class).run(arguments.toArray(new String[0]));
+    }
+
+    /**
+     * @param spec Weights as create=10,findByText=25.
+     * @return Weight of every endpoint in the mix.
+     */
+    static Map<Endpoint, Integer> mix(String spec) {
+        final Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+        for (String weight : spec.split(",")) {
+            final String[] pair = weight.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Malformed weight " + weight);
+            }
+            final int value = Integer.parseInt(pair[1]);
+            if (value > 0) {
+                mix.put(Endpoint.of(pair[0]), value);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("Empty request mix");
+        }
+        return mix;
+    }
+
+    /**
+     * The method create generated notes missing up to the requested number by batch import
+     * and load ids of generated notes and tags.
+     * @param notes Number of generated notes.
+     * @throws IOException If application is not available.
+     */
+    public void seed(int notes) throws IOException {
+        List<Long> ids = this.generatedIds();
+        final Seed generator = new Seed(ids.size());
+        for (int existing = ids.size(); existing < notes; existing += CHUNK) {
+            final List<Note> chunk = new ArrayList<>();
+            for (int i = 0; i < Math.min(CHUNK, notes - existing); i++) {
+                chunk.add(generator.nextNote());
+            }
+            this.send(this.json(new HttpPost(url + "/note/batch"), chunk));
+        }
+        ids = this.generatedIds();
+        this.noteIds = ids.stream().mapToLong(Long::longValue).toArray();
+        final Map<String, Long> tags = new HashMap<>();
+        for (JsonNode tag : this.send(new HttpGet(url + "/tag/suggest?limit=1000&prefix=bench-tag-")).getBody()) {
+            tags.put(tag.get("title").asText(), tag.get("id").asLong());
+        }
+        if (noteIds.length == 0 || tags.isEmpty()) {
+            throw new IllegalStateException("No generated notes in " + url);
+        }
+        final long top = tags.getOrDefault(Seed.tagTitle(0), tags.values().iterator().next());
+        this.tagIds = new long[Seed.TAGS];
+        for (int rank = 0; rank < Seed.TAGS; rank++) {
+            tagIds[rank] = tags.getOrDefault(Seed.tagTitle(rank), top);
+        }
+    }
+
+    /**
+     * The method send requests of the mix at fixed rate and wait for their responses.
+     * Requests still queued after DRAIN are dropped, as the application can not keep the rate.
+     * @param mix Weights of endpoints.
+     * @param rate Requests per second.
+     * @param warmup Time of not measured requests.
+     * @param duration Time of measured requests.
+     * @param threads Number of concurrent requests.
+     * @return Number of dropped requests.
+     * @throws InterruptedException If interrupted while waiting for responses.
+     */
+    public int run(Map<Endpoint, Integer> mix, double rate, Duration warmup, Duration duration, int threads)
+            throws InterruptedException {
+        final Endpoint[] endpoints = mix.keySet().toArray(new Endpoint[0]);
+        final int[] cumulative = new int[endpoints.length];
+        int total = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            total += mix.get(endpoints[i]);
+            cumulative[i] = total;
+        }
+        final ExecutorService workers = Executors.newFixedThreadPool(threads);
+        final long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        final long start = System.nanoTime();
+        final long measured = start + warmup.toNanos();
+        final long end = measured + duration.toNanos();
+        for (long intended = start; intended < end; intended += interval) {
+            final long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            final int pick = random.nextInt(total);
+            int i = 0;
+            while (cumulative[i] <= pick) {
+                i++;
+            }
+            Endpoint endpoint = endpoints[i];
+            Long deleted = null;
+            if (endpoint == Endpoint.DELETE) {
+                deleted = created.poll();
+                if (deleted == null) {
+                    endpoint = Endpoint.CREATE;
+                }
+            }
+            final HttpUriRequest request = this.request(endpoint, deleted);
+            final Endpoint called = endpoint;
+            final long scheduled = intended;
+            workers.execute(() -> this.call(called, request, scheduled, scheduled >= measured));
+        }
+        workers.shutdown();
+        if (workers.awaitTermination(DRAIN.toNanos(), TimeUnit.NANOSECONDS)) {
+            return 0;
+        }
+        final int dropped = workers.shutdownNow().size();
+        workers.awaitTermination(DRAIN.toNanos(), TimeUnit.NANOSECONDS);
+        return dropped;
+    }
+
+    /**
+     * The method delete notes created by the test, so the database keeps generated notes only.
+     * Only the test creates notes dated 2100, so the delete limit is lifted.
+     * @throws IOException If application is not available.
+     */
+    public void cleanUp() throws IOException {
+        this.send(new HttpDelete(url + "/note/bulk?from=2100-01-01&max=" + Integer.MAX_VALUE));
+    }
+
+    /**
+     * The method print percentiles of every called endpoint in milliseconds and write
+     * percentile distributions to the directory.
+     * @param out Report output.
+     * @param dir Directory of .hgrm files.
+     * @throws IOException If files can not be written.
+     */
+    public void report(PrintStream out, File dir) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Can not create " + dir);
+        }
+        out.printf("%-14s %8s %7s %9s %9s %9s %9s%n", "endpoint", "count", "errors", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Endpoint endpoint : Endpoint.values()) {
+            final Histogram histogram = latencies.get(endpoint);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            out.printf("%-14s %8d %7d %9.2f %9.2f %9.2f %9.2f%n", endpoint.getKey(), histogram.getTotalCount(),
+                    errors.get(endpoint).sum(), histogram.getValueAtPercentile(50) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0, histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0);
+            try (PrintStream file = new PrintStream(new File(dir, endpoint.getKey() + ".hgrm"), "UTF-8")) {
+                histogram.outputPercentileDistribution(file, 1000.0);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        client.close();
+    }
+
+    /**
+     * @param endpoint Called endpoint.
+     * @param deleted Id of deleted note.
+     * @return Request with random arguments.
+     */
+    private HttpUriRequest request(Endpoint endpoint, Long deleted) {
+        switch (endpoint) {
+            case CREATE:
+                final Note note = seed.nextNote();
+                note.setDateCreate(FUTURE);
+                return this.json(new HttpPost(url + "/note/"), note);
+            case UPDATE:
+                final ObjectNode update = mapper.createObjectNode();
+                update.put("id", this.noteId());
+                update.put("text", seed.nextText());
+                update.put("topic", Seed.TOPIC);
+                update.putPOJO("dateCreate", seed.nextDate());
+                return this.json(new HttpPut(url + "/note/"), update);
+            case DELETE:
+                return new HttpDelete(url + "/note/" + deleted);
+            case FIND_BY_DATE:
+                final ObjectNode date = mapper.createObjectNode();
+                date.putPOJO("date", seed.nextDate());
+                date.put("comparisonSign", random.nextBoolean() ? ">" : "<");
+                return this.json(new HttpGetWithBody(url + "/note/findByDate/"), date);
+            case FIND_BY_HASH_TAG:
+                return new HttpGet(url + "/note/findByHashTag/" + tagIds[seed.nextTagRank()]);
+            case FIND_BY_TEXT:
+                return new HttpGet(url + "/note/findByText/" + seed.nextWord());
+            default:
+                throw new IllegalArgumentException("Unknown endpoint " + endpoint);
+        }
+    }
+
+    /**
+     * The method send the request and record its latency counted from the scheduled time.
+     * @param endpoint Called endpoint.
+     * @param request Request.
+     * @param scheduled Time the request was scheduled at, System.nanoTime().
+     * @param measured Whether latency is recorded.
+     */
+    private void call(Endpoint endpoint, HttpUriRequest request, long scheduled, boolean measured) {
+        boolean failed;
+        try (CloseableHttpResponse response = client.execute(request)) {
+            failed = response.getStatusLine().getStatusCode() >= 400;
+            if (endpoint == Endpoint.CREATE && !failed) {
+                created.add(mapper.readTree(response.getEntity().getContent()).get("id").asLong());
+            }
+            EntityUtils.consume(response.getEntity());
+        } catch (IOException | RuntimeException e) {
+            failed = true;
+        }
+        if (measured) {
+            latencies.get(endpoint).recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduled));
+            if (failed) {
+                errors.get(endpoint).increment();
+            }
+        }
+    }
+
+    /**
+     * @return Ids of generated notes, notes created by the test are not included.
+     * @throws IOException If application is not available.
+     */
+    private List<Long> generatedIds() throws IOException {
+        final List<Long> ids = new ArrayList<>();
+        final String search = url + "/note/search?view=summary&limit=" + CHUNK
+                + "&to=2100-01-01&text=" + Seed.TOPIC;
+        String cursor = null;
+        do {
+            final Response page = this.send(new HttpGet(cursor == null ? search
+                    : search + "&cursor=" + URLEncoder.encode(cursor, "UTF-8")));
+            for (JsonNode note : page.getBody()) {
+                if (Seed.TOPIC.equals(note.path("topic").asText())) {
+                    ids.add(note.get("id").asLong());
+                }
+            }
+            cursor = page.getCursor();
+        } while (cursor != null);
+        return ids;
+    }
+
+    private long noteId() {
+        return noteIds[random.nextInt(noteIds.length)];
+    }
+
+    private <T extends HttpEntityEnclosingRequestBase> T json(T request, Object body) {
+        try {
+            request.setEntity(new ByteArrayEntity(mapper.writeValueAsBytes(body), ContentType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return request;
+    }
+
+    /**
+     * The method send request of seeding and fail on error status.
+     * @param request Request.
+     * @return Response.
+     * @throws IOException If application is not available or answers with error.
+     */
+    private Response send(HttpUriRequest request) throws IOException {
+        try (CloseableHttpResponse response = client.execute(request)) {
+            final HttpEntity entity = response.getEntity();
+            final String body = entity == null ? "" : EntityUtils.toString(entity, StandardCharsets.UTF_8);
+            if (response.getStatusLine().getStatusCode() >= 400) {
+                throw new IOException(request + " failed: " + response.getStatusLine() + " " + body);
+            }
+            final Header cursor = response.getFirstHeader(NoteController.NEXT_CURSOR);
+            return new Response(body.isEmpty() ? mapper.createArrayNode() : mapper.readTree(body),
+                    cursor == null ? null : cursor.getValue());
+        }
+    }
+
+    /**
+     * Class describe parsed response of seeding request.
+     */
+    private static final class Response {
+        private final JsonNode body;
+        private final String cursor;
+
+        private Response(JsonNode body, String cursor) {
+            this.body = body;
+            this.cursor = cursor;
+        }
+
+        public JsonNode getBody() {
+            return body;
+        }
+
+        public String getCursor() {
+            return cursor;
+        }
+    }
+
+    /**
+     * Class describe GET request with body, as /note/findByDate/ expects.
+     */
+    private static final class HttpGetWithBody extends HttpEntityEnclosingRequestBase {
+        private HttpGetWithBody(String uri) {
+            this.setURI(URI.create(uri));
+        }
+
+        @Override
+        public String getMethod() {
+            return HttpGet.METHOD_NAME;
+        }
+    }
+}
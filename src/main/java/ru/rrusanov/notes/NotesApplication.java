@@ -1,14 +1,37 @@
 package ru.rrusanov.notes;
 
 import liquibase.integration.spring.SpringLiquibase;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.IntervalTask;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.rrusanov.notes.controllers.EndpointInterceptor;
+import ru.rrusanov.notes.store.Hibernate;
+import ru.rrusanov.notes.store.SlowQueryLog;
+import ru.rrusanov.notes.store.StoreExecutor;
+import ru.rrusanov.notes.store.TagCache;
+import ru.rrusanov.notes.store.TagIndex;
+import ru.rrusanov.notes.store.TagStats;
+import ru.rrusanov.notes.store.TagSuggest;
+import ru.rrusanov.notes.store.TrigramIndex;
 
 import javax.sql.DataSource;
+import java.time.Duration;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
 
 @SpringBootApplication
+@EnableScheduling
 public class NotesApplication {
     /**
      * The bean instance for Liquibase config.
@@ -23,6 +46,165 @@ public class NotesApplication {
         return liquibase;
     }
 
+    /**
+     * The bean instance for cache of persisted tags, statistics are exported as cache.* metrics.
+     * @param maximumSize Maximum number of cached tags.
+     * @return Tag cache.
+     */
+    @Bean
+    public TagCache tagCache(@Value("${notes.tag-cache.maximum-size:10000}") long maximumSize) {
+        return new TagCache(maximumSize);
+    }
+
+    /**
+     * The bean instance for capture of slow statements of the store and sampled statement log.
+     * @param threshold Minimal execution time of captured statement.
+     * @param capacity Number of kept statements.
+     * @param sample Share of logged statements, 0 to turn logging off.
+     * @return Slow query log.
+     */
+    @Bean
+    public SlowQueryLog slowQueryLog(@Value("${notes.slow-query.threshold:PT0.1S}") Duration threshold,
+                                     @Value("${notes.slow-query.capacity:256}") int capacity,
+                                     @Value("${notes.sql-log.sample:0}") double sample) {
+        return new SlowQueryLog(threshold, capacity, sample);
+    }
+
+    /**
+     * The bean instance for store, shares pooled data source with the rest of application.
+     * Statements are executed through proxy notifying slow query log.
+     * Created after liquibase so the schema is up to date.
+     * @param ds Data source config DB connection.
+     * @param tagCache Cache of persisted tags.
+     * @param slowQueryLog Listener of executed statements.
+     * @param cache True to enable second-level and query cache.
+     * @param cacheConfig Ehcache configuration of cache regions.
+     * @param statistics True to collect session factory statistics.
+     * @return Store instance.
+     */
+    @Bean
+    @DependsOn("liquibase")
+    public Hibernate hibernate(DataSource ds, TagCache tagCache, SlowQueryLog slowQueryLog,
+                               @Value("${notes.hibernate.cache.enabled:false}") boolean cache,
+                               @Value("${notes.hibernate.cache.config:ehcache.xml}") String cacheConfig,
+                               @Value("${notes.hibernate.statistics:false}") boolean statistics) {
+        Map<String, Object> settings = new HashMap<>();
+        if (cache) {
+            settings.putAll(Hibernate.secondLevelCache(cacheConfig));
+        }
+        if (statistics) {
+            settings.put(AvailableSettings.GENERATE_STATISTICS, true);
+        }
+        return new Hibernate(ProxyDataSourceBuilder.create(ds).listener(slowQueryLog).build(), tagCache, settings);
+    }
+
+    /**
+     * The bean instance for bounded executor of store calls of request handlers,
+     * disabled by notes.async.enabled=false to run them in servlet threads.
+     * @param enabled True to run store calls on the executor.
+     * @param threads Number of threads, by default the size of connection pool.
+     * @param capacity Number of queued calls, requests over it are answered with 503 status.
+     * @return Store executor.
+     */
+    @Bean
+    public StoreExecutor storeExecutor(@Value("${notes.async.enabled:true}") boolean enabled,
+                                       @Value("${notes.async.threads:${spring.datasource.hikari.maximum-pool-size:10}}")
+                                               int threads,
+                                       @Value("${notes.async.queue-capacity:100}") int capacity) {
+        return new StoreExecutor(enabled ? threads : 0, capacity);
+    }
+
+    /**
+     * The bean instance for web configuration, endpoint of every request is put to MDC
+     * to tag meters of store calls made while it is handled.
+     * @return Web configuration.
+     */
+    @Bean
+    public WebMvcConfigurer endpointTagging() {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(new EndpointInterceptor());
+            }
+        };
+    }
+
+    /**
+     * The bean instance for in-memory substring index, enabled by notes.search.index=memory.
+     * Built by parallel scan at startup and kept up to date from committed store changes.
+     * @param store Store instance.
+     * @param threads Number of parallel scans.
+     * @return Trigram index.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "notes.search.index", havingValue = "memory")
+    public TrigramIndex trigramIndex(Hibernate store,
+                                     @Value("${notes.search.build-threads:4}") int threads) {
+        TrigramIndex index = new TrigramIndex(store);
+        store.addListener(index);
+        index.build(threads);
+        return index;
+    }
+
+    /**
+     * The bean instance for in-memory tag bitmap index, enabled by notes.tag-index.enabled=true.
+     * Built at startup and kept up to date from committed store changes.
+     * @param store Store instance.
+     * @return Tag index.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "notes.tag-index.enabled", havingValue = "true")
+    public TagIndex tagIndex(Hibernate store) {
+        TagIndex index = new TagIndex();
+        store.addListener(index);
+        index.build(store);
+        return index;
+    }
+
+    /**
+     * The bean instance for number of notes per tag, loaded from DB at startup
+     * and kept up to date from committed store changes.
+     * @param store Store instance.
+     * @return Tag counters.
+     */
+    @Bean
+    public TagStats tagStats(Hibernate store) {
+        TagStats stats = new TagStats();
+        store.addListener(stats);
+        stats.reconcile(store);
+        return stats;
+    }
+
+    /**
+     * The bean instance for completion of tag titles, loaded from DB at startup
+     * and kept up to date with persisted tags.
+     * @param store Store instance.
+     * @param stats Tag counters used for ranking.
+     * @return Tag completion.
+     */
+    @Bean
+    public TagSuggest tagSuggest(Hibernate store, TagStats stats) {
+        TagSuggest suggest = new TagSuggest(stats);
+        store.addListener(suggest);
+        suggest.build(store);
+        return suggest;
+    }
+
+    /**
+     * The bean instance for periodic reconciliation of tag counters with DB.
+     * @param store Store instance.
+     * @param stats Tag counters.
+     * @param interval Delay between reconciliations.
+     * @return Scheduling configuration.
+     */
+    @Bean
+    public SchedulingConfigurer tagStatsReconciliation(Hibernate store, TagStats stats,
+                                                       @Value("${notes.tag-stats.reconcile-interval:PT10M}")
+                                                               Duration interval) {
+        return registrar -> registrar.addFixedDelayTask(
+                new IntervalTask(() -> stats.reconcile(store), interval.toMillis(), interval.toMillis()));
+    }
+
     /**
      * Entry point.
      * @param args Passed args.
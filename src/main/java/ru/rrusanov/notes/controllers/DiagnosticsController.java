@@ -0,0 +1,86 @@
+package ru.rrusanov.notes.controllers;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.rrusanov.notes.domain.jsonmapper.SlowQuery;
+import ru.rrusanov.notes.store.InvalidRequestException;
+import ru.rrusanov.notes.store.SlowQueryLog;
+
+import java.util.List;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe REST Controller of runtime diagnostics of the store.
+ */
+@RestController
+@RequestMapping("/diagnostics")
+public class DiagnosticsController {
+    /**
+     * Captured slow statements and switch of statement logging.
+     */
+    private final SlowQueryLog log;
+    /**
+     * True when statement logging may be switched by request, logged bind values may hold note texts.
+     */
+    private final boolean switchable;
+
+    public DiagnosticsController(SlowQueryLog log,
+                                 @Value("${notes.sql-log.switchable:false}") boolean switchable) {
+        this.log = log;
+        this.switchable = switchable;
+    }
+
+    /**
+     * Return statements executed longer than notes.slow-query.threshold,
+     * kept in a buffer of notes.slow-query.capacity entries.
+     * @return Statements with bind parameters and store method, the latest first.
+     */
+    @GetMapping("/slow-queries")
+    public List<SlowQuery> slowQueries() {
+        return log.slowQueries();
+    }
+
+    /**
+     * Return share of logged statements.
+     * @return Share between 0 and 1, 0 when logging is off.
+     */
+    @GetMapping("/sql-log")
+    public double sqlLog() {
+        return log.getSample();
+    }
+
+    /**
+     * Switch logging of executed statements with bind parameters, duration and store method
+     * by http://localhost:8080/diagnostics/sql-log?sample=0.01 put request.
+     * Allowed only with notes.sql-log.switchable=true, otherwise forbidden status is returned.
+     * @param sample Share of logged statements between 0 and 1, 0 to turn logging off.
+     * @return Share of logged statements.
+     */
+    @PutMapping("/sql-log")
+    public ResponseEntity<Double> sqlLog(@RequestParam double sample) {
+        if (!switchable) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        log.setSample(sample);
+        return ResponseEntity.ok(log.getSample());
+    }
+
+    /**
+     * Sample out of range.
+     * @param e Exception thrown on validation.
+     * @return Bad request status with reason.
+     */
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<String> badRequest(InvalidRequestException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -0,0 +1,39 @@
+package ru.rrusanov.notes.controllers;
+
+import org.slf4j.MDC;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.rrusanov.notes.store.StoreMetrics;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe interceptor putting endpoint of handled request to MDC, http method and
+ * path pattern of the handler, so store meters are tagged by it. The value is removed
+ * when the handler returns, store executor passes it to threads completing the request.
+ */
+public class EndpointInterceptor implements AsyncHandlerInterceptor {
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        final Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        MDC.put(StoreMetrics.ENDPOINT, request.getMethod() + " " + (pattern == null ? "unmapped" : pattern));
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        MDC.remove(StoreMetrics.ENDPOINT);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        MDC.remove(StoreMetrics.ENDPOINT);
+    }
+}
@@ -1,97 +1,368 @@
 package ru.rrusanov.notes.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.hibernate.StaleStateException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.rrusanov.notes.domain.HashTag;
 import ru.rrusanov.notes.domain.Note;
+import ru.rrusanov.notes.domain.jsonmapper.BatchResult;
+import ru.rrusanov.notes.domain.jsonmapper.BulkResult;
 import ru.rrusanov.notes.domain.jsonmapper.JsonDate;
+import ru.rrusanov.notes.domain.jsonmapper.NoteSummary;
 import ru.rrusanov.notes.store.Hibernate;
+import ru.rrusanov.notes.store.InvalidRequestException;
+import ru.rrusanov.notes.store.Keyset;
+import ru.rrusanov.notes.store.NoteFilter;
+import ru.rrusanov.notes.store.Page;
+import ru.rrusanov.notes.store.StoreExecutor;
+import ru.rrusanov.notes.store.TagIndex;
+import ru.rrusanov.notes.store.TrigramIndex;
 
+import javax.persistence.OptimisticLockException;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * @author Roman Rusanov
  * @since 21.06.2021
  * email roman9628@gmail.com
  * Class describe REST Controller working with note entity.
+ * Handlers reading or changing DB return futures completed on bounded store executor,
+ * so servlet threads are not blocked by JDBC; when its queue is full 503 status is returned.
+ * Parameters are validated before the call is queued.
+ * Streamed responses take a thread of the executor before DB cursor is opened
+ * and 503 status is returned when there is no idle one.
  */
 @RestController
 @RequestMapping("/note")
 public class NoteController {
+    /**
+     * Response header with cursor of the next page.
+     */
+    public static final String NEXT_CURSOR = "X-Next-Cursor";
+    /**
+     * Response header with number of matching items on all pages.
+     */
+    public static final String TOTAL_COUNT = "X-Total-Count";
+    private static final String DEFAULT_LIMIT = "" + Keyset.DEFAULT_LIMIT;
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+    /**
+     * Buffer of export writers.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * Writer used for streamed responses, flushes are left to the output buffer.
+     */
+    private final ObjectWriter writer;
+    /**
+     * Store working with DB.
+     */
+    private final Hibernate store;
+    /**
+     * In-memory substring index, null when search runs in DB.
+     */
+    private final TrigramIndex textIndex;
+    /**
+     * In-memory tag index, null when it is disabled.
+     */
+    private final TagIndex tagIndex;
+    /**
+     * Reader of notes from batch import stream.
+     */
+    private final ObjectReader reader;
+    /**
+     * Number of notes of batch import persisted in one transaction.
+     */
+    private final int batchChunkSize;
+    /**
+     * Bounded executor of store calls, handlers return futures completed by it.
+     */
+    private final StoreExecutor executor;
+    /**
+     * Maximal number of notes deleted by one bulk request without explicit max parameter.
+     */
+    private final int deleteLimit;
+
+    public NoteController(Hibernate store, ObjectMapper mapper, ObjectProvider<TrigramIndex> textIndex,
+                          ObjectProvider<TagIndex> tagIndex, StoreExecutor executor,
+                          @Value("${notes.batch.chunk-size:1000}") int batchChunkSize,
+                          @Value("${notes.bulk.delete-limit:1000}") int deleteLimit) {
+        this.store = store;
+        this.executor = executor;
+        this.textIndex = textIndex.getIfAvailable();
+        this.tagIndex = tagIndex.getIfAvailable();
+        this.reader = mapper.readerFor(Note.class);
+        this.batchChunkSize = batchChunkSize;
+        this.deleteLimit = deleteLimit;
+        this.writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
 
     /**
-     * Return all saved Notes in DB.
+     * Return one page of saved Notes in DB ordered by date and id.
+     * Cursor of the next page is passed in X-Next-Cursor response header.
+     * @param cursor Cursor from previous page, absent for the first page.
+     * @param limit Page size, capped by Keyset.MAX_LIMIT.
+     * @param sort Sort order asc or desc, ignored when cursor passed.
+     * @param view full for notes with text and tags or summary for id, topic, date, tag ids and snippet.
      * @return List with notes.
      */
     @GetMapping("/")
-    public List<Note> findAll() {
-        return Hibernate.instOf().findAllNotes();
+    public CompletableFuture<ResponseEntity<List<?>>> findAll(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_LIMIT) int limit,
+            @RequestParam(defaultValue = "asc") String sort,
+            @RequestParam(defaultValue = "full") String view) {
+        Keyset keyset = keyset(cursor, limit, sort);
+        Class<?> type = view(view);
+        return executor.submit(() -> page(store.findAllNotes(keyset, type)));
+    }
+
+    /**
+     * Return saved note with full text and tags.
+     * @param id Note id.
+     * @return Note or not found status.
+     */
+    @GetMapping("/{id}")
+    public CompletableFuture<ResponseEntity<Note>> findById(@PathVariable Long id) {
+        return executor.submit(() -> {
+            Note note = store.findNoteById(id);
+            return note == null ? ResponseEntity.notFound().<Note>build() : ResponseEntity.ok(note);
+        });
+    }
+
+    /**
+     * Stream all saved notes as newline delimited json, selected by
+     * Accept: application/x-ndjson header. Each note is written to the response
+     * as it is read from DB, so memory usage does not depend on table size.
+     * The stream holds a thread of store executor until the last note is written.
+     * @return Response body writing notes one per line.
+     */
+    @GetMapping(value = "/", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        final StoreExecutor.Permit permit = executor.permit();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> {
+                    try (StoreExecutor.Permit held = permit.open();
+                         JsonGenerator json = writer.getFactory().createGenerator(out)) {
+                        json.setRootValueSeparator(null);
+                        store.forEachNote(note -> {
+                            try {
+                                writer.writeValue(json, note);
+                                json.writeRaw('\n');
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+                    }
+                });
+    }
+
+    /**
+     * Export notes with their tags to http://localhost:8080/note/export get request.
+     * Notes are written in id order as they are read from DB cursor, so neither
+     * side has to hold the whole data set in memory.
+     * The export holds a thread of store executor until the last note is written.
+     * @param format ndjson (one json note per line) or csv
+     * (id,dateCreate,topic,text,tagIds,tags, tag lists separated by '|').
+     * @param since Export only notes created at or after this ISO date or date-time.
+     * @param gzip True to gzip the response body, sent with Content-Encoding: gzip.
+     * @return Response body writing notes.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME, fallbackPatterns = "yyyy-MM-dd") Date since,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        final boolean csv;
+        if ("csv".equals(format)) {
+            csv = true;
+        } else if ("ndjson".equals(format)) {
+            csv = false;
+        } else {
+            throw new InvalidRequestException("Unknown format: " + format);
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(csv ? TEXT_CSV : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("notes." + format).build().toString());
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        final StoreExecutor.Permit permit = executor.permit();
+        return response.body(out -> {
+            try (StoreExecutor.Permit held = permit.open();
+                 OutputStream body = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out) {
+                if (csv) {
+                    exportCsv(body, since);
+                } else {
+                    exportJson(body, since);
+                }
+            }
+        });
     }
 
     /**
      * Create new note passed json to http://localhost:8080/note/ post request date
+     * Tags are resolved and the note is persisted in one transaction.
      * @param note mapped instance from json.
      * @return Created instance with real id DB.
      */
     @PostMapping("/")
-    public ResponseEntity<Note> create(@RequestBody Note note) {
+    public CompletableFuture<ResponseEntity<Note>> create(@RequestBody Note note) {
         if (note.getText() == null || note.getDateCreate() == null) {
-            return new ResponseEntity<Note>(
+            return CompletableFuture.completedFuture(new ResponseEntity<Note>(
                     HttpStatus.CONFLICT
-            );
+            ));
         }
-        if (!note.getHashTag().isEmpty()) {
-            note.getHashTag().forEach(hashTag -> {
-                HashTag tag = Hibernate.instOf().findTagById(hashTag.getId());
-                if (tag == null) {
-                    Hibernate.instOf().createModel(hashTag);
-                } else {
-                    hashTag.setTitle(tag.getTitle());
-                }
-            });
-        }
-        return new ResponseEntity<>(
-                Hibernate.instOf().createModel(note),
-                HttpStatus.CREATED
-        );
+        return executor.submit(() -> store.unitOfWork(() -> {
+            note.setHashTag(store.resolveTags(note.getHashTag()));
+            return new ResponseEntity<>(
+                    store.createModel(note),
+                    HttpStatus.CREATED
+            );
+        }));
+    }
+
+    /**
+     * Create many notes passed as json array to http://localhost:8080/note/batch post request.
+     * @param notes mapped instances from json.
+     * @return Result of every note in order of passed ones.
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<List<BatchResult>> createBatch(@RequestBody List<Note> notes) {
+        return executor.submit(() -> importNotes(notes.iterator()));
+    }
+
+    /**
+     * Create many notes passed as newline delimited json stream to
+     * http://localhost:8080/note/batch post request. Notes are read by store executor
+     * chunk after chunk, so the request body is never held in memory.
+     * Reading stops at the first malformed note.
+     * @param body request body.
+     * @return Result of every read note in order of passed ones.
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public CompletableFuture<List<BatchResult>> createBatchStream(InputStream body) {
+        return executor.submit(() -> {
+            try (MappingIterator<Note> notes = reader.readValues(body)) {
+                return importNotes(notes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
     }
 
     /**
      * Update note data new data take from json http://localhost:8080/note/ put request.
-     * If Note contain new HashTag when this tag persist.
+     * If Note contain new HashTag when this tag persist, tags are matched by id or title.
+     * Lookup, tag creation and update run in one transaction.
+     * When version is passed and differs from the current one, the note was changed since
+     * the client read it and conflict status is returned. Without version the note is
+     * overwritten unconditionally, as clients written before versioning expect.
+     * Text and date of creation absent in json are kept.
      * @param note mapped instance from json.
      * @return If passed not with id exist in DB, when update and return 200 status.
      * Otherwise return conflict 409 status.
      */
     @PutMapping("/")
-    public ResponseEntity<Void> update(@RequestBody Note note) {
-        Note noteFromDB = Hibernate.instOf().findNoteById(note.getId());
-        if (noteFromDB != null) {
-            if (!note.getHashTag().isEmpty()) {
-                note.getHashTag().forEach(hashTag -> {
-                    if (Hibernate.instOf().findTagById(hashTag.getId()) == null) {
-                        Hibernate.instOf().createModel(hashTag);
-                    } else {
-                        noteFromDB.addHashTag(hashTag);
-                    }
-                });
+    public CompletableFuture<ResponseEntity<Void>> update(@RequestBody Note note) {
+        return executor.submit(() -> store.unitOfWork(() -> {
+            Note noteFromDB = store.findNoteById(note.getId());
+            if (noteFromDB != null) {
+                note.setHashTag(store.resolveTags(note.getHashTag()));
+                store.updateNote(note);
+                return ResponseEntity.ok().<Void>build();
             }
-            Hibernate.instOf().updateNote(note);
-            return ResponseEntity.ok().build();
+            return new ResponseEntity<Void>(
+                    HttpStatus.CONFLICT
+            );
+        }));
+    }
+
+    /**
+     * Change only fields present in json of http://localhost:8080/note/{id} patch request.
+     * Passed hashTag replaces tags of the note, only added and removed links are written.
+     * Passed version is required and must be equal to the current one, otherwise the note
+     * was changed since the client read it and conflict status is returned.
+     * @param id Note id.
+     * @param patch Changed fields with version.
+     * @return Changed note with new version, not found status if there is no note with id,
+     * bad request status without version.
+     * @throws IOException If fields can not be mapped to note.
+     */
+    @PatchMapping("/{id}")
+    public CompletableFuture<ResponseEntity<Note>> patch(@PathVariable Long id, @RequestBody ObjectNode patch)
+            throws IOException {
+        final Note changes = reader.readValue(patch);
+        if (changes.getVersion() == null) {
+            throw new InvalidRequestException("Version of the changed note is required");
+        }
+        if (patch.has("text") && changes.getText() == null
+                || patch.has("dateCreate") && changes.getDateCreate() == null) {
+            throw new InvalidRequestException("Text and date of creation can not be removed");
         }
-        return new ResponseEntity<Void>(
-                HttpStatus.CONFLICT
-        );
+        return executor.submit(() -> store.unitOfWork(() -> {
+            final List<HashTag> tags = patch.has("hashTag") ? store.resolveTags(changes.getHashTag()) : null;
+            final Note note = store.changeNote(id, changes.getVersion(), managed -> {
+                if (patch.has("text")) {
+                    managed.setText(changes.getText());
+                }
+                if (patch.has("dateCreate")) {
+                    managed.setDateCreate(changes.getDateCreate());
+                }
+                if (patch.has("topic")) {
+                    managed.setTopic(changes.getTopic());
+                }
+                if (tags != null) {
+                    managed.replaceHashTags(tags);
+                }
+            });
+            return note == null ? ResponseEntity.notFound().<Note>build() : ResponseEntity.ok(note);
+        }));
     }
 
     /**
@@ -103,54 +374,480 @@ public class NoteController {
      * Otherwise return conflict 409 status.
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@PathVariable Long id) {
-        Optional<Note> noteToDelete = Optional.ofNullable(Hibernate.instOf().findNoteById(id));
-        if (noteToDelete.isPresent()) {
-            Hibernate.instOf().deleteNote(noteToDelete.get().getId());
-            return ResponseEntity.ok().build();
-        }
-        return new ResponseEntity<Void>(
-                HttpStatus.CONFLICT
-        );
+    public CompletableFuture<ResponseEntity<Void>> delete(@PathVariable Long id) {
+        return executor.submit(() -> store.deleteNote(id) != null
+                ? ResponseEntity.ok().<Void>build()
+                : new ResponseEntity<Void>(HttpStatus.CONFLICT));
+    }
+
+    /**
+     * Delete all notes matching passed conditions with their tag links by one statement.
+     * At least one condition is required. When more than max notes match nothing is
+     * deleted and bad request status is returned, so a wrong range can not wipe the table.
+     * @param from Minimal date of creation inclusive, ISO date or date-time.
+     * @param to Maximal date of creation exclusive, ISO date or date-time.
+     * @param all Ids of tags every note must have.
+     * @param any Ids of tags of which every note must have at least one.
+     * @param text Substring of text or topic.
+     * @param max Maximal number of deleted notes, notes.bulk.delete-limit by default.
+     * @return Number of deleted notes.
+     */
+    @DeleteMapping("/bulk")
+    public CompletableFuture<BulkResult> deleteBulk(
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME, fallbackPatterns = "yyyy-MM-dd") Date from,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME, fallbackPatterns = "yyyy-MM-dd") Date to,
+            @RequestParam(required = false) List<Long> all,
+            @RequestParam(required = false) List<Long> any,
+            @RequestParam(required = false) String text,
+            @RequestParam(required = false) Integer max) {
+        NoteFilter filter = filter(from, to, all, any, text);
+        int limit = max == null ? deleteLimit : max;
+        return executor.submit(() -> BulkResult.of(store.deleteNotes(filter, limit)));
+    }
+
+    /**
+     * Add tag to all notes matching passed conditions by one statement.
+     * Absent parameters do not restrict the notes.
+     * @param tagId Id of tag to add.
+     * @param from Minimal date of creation inclusive, ISO date or date-time.
+     * @param to Maximal date of creation exclusive, ISO date or date-time.
+     * @param all Ids of tags every note must have.
+     * @param any Ids of tags of which every note must have at least one.
+     * @param text Substring of text or topic.
+     * @return Number of notes that got the tag.
+     */
+    @PutMapping("/bulk/tag/{tagId}")
+    public CompletableFuture<BulkResult> tagBulk(
+            @PathVariable Long tagId,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME, fallbackPatterns = "yyyy-MM-dd") Date from,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME, fallbackPatterns = "yyyy-MM-dd") Date to,
+            @RequestParam(required = false) List<Long> all,
+            @RequestParam(required = false) List<Long> any,
+            @RequestParam(required = false) String text) {
+        NoteFilter filter = filter(from, to, all, any, text);
+        return executor.submit(() -> BulkResult.of(store.tagNotes(filter, tagId)));
     }
 
     /**
-     * Get all notes which satisfy the condition.
+     * Remove tag from all notes matching passed conditions by one statement.
+     * Absent parameters do not restrict the notes.
+     * @param tagId Id of tag to remove.
+     * @param from Minimal date of creation inclusive, ISO date or date-time.
+     * @param to Maximal date of creation exclusive, ISO date or date-time.
+     * @param all Ids of tags every note must have.
+     * @param any Ids of tags of which every note must have at least one.
+     * @param text Substring of text or topic.
+     * @return Number of notes that lost the tag.
+     */
+    @DeleteMapping("/bulk/tag/{tagId}")
+    public CompletableFuture<BulkResult> untagBulk(
+            @PathVariable Long tagId,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME, fallbackPatterns = "yyyy-MM-dd") Date from,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME, fallbackPatterns = "yyyy-MM-dd") Date to,
+            @RequestParam(required = false) List<Long> all,
+            @RequestParam(required = false) List<Long> any,
+            @RequestParam(required = false) String text) {
+        NoteFilter filter = filter(from, to, all, any, text);
+        return executor.submit(() -> BulkResult.of(store.untagNotes(filter, tagId)));
+    }
+
+    /**
+     * Get one page of notes which satisfy the condition.
      * @param jsonDate mapper that contain date and sign to compare.
+     * @param cursor Cursor from previous page, absent for the first page.
+     * @param limit Page size, capped by Keyset.MAX_LIMIT.
+     * @param sort Sort order asc or desc, ignored when cursor passed.
+     * @param view full for notes with text and tags or summary for id, topic, date, tag ids and snippet.
      * @return List notes math.
      */
     @GetMapping("/findByDate/")
-    public List<Note> findByDate(@RequestBody JsonDate jsonDate) {
-        List<Note> result = new ArrayList<>();
-        if (jsonDate.getComparisonSign().equals('>')) {
-            result = Hibernate.instOf().findNotesGreaterDate(jsonDate.getDate());
-        }
-        if (jsonDate.getComparisonSign().equals('<')) {
-            result = Hibernate.instOf().findNotesLessDate(jsonDate.getDate());
-        }
-        if (jsonDate.getComparisonSign().equals('=')) {
-            result = Hibernate.instOf().findNotesEqualDate(jsonDate.getDate());
-        }
-        return result;
+    public CompletableFuture<ResponseEntity<List<?>>> findByDate(
+            @RequestBody JsonDate jsonDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_LIMIT) int limit,
+            @RequestParam(defaultValue = "asc") String sort,
+            @RequestParam(defaultValue = "full") String view) {
+        Keyset keyset = keyset(cursor, limit, sort);
+        Class<?> type = view(view);
+        return executor.submit(() -> {
+            Page<?> result = new Page<>(Collections.emptyList(), null);
+            if (jsonDate.getComparisonSign().equals('>')) {
+                result = store.findNotesGreaterDate(jsonDate.getDate(), keyset, type);
+            }
+            if (jsonDate.getComparisonSign().equals('<')) {
+                result = store.findNotesLessDate(jsonDate.getDate(), keyset, type);
+            }
+            if (jsonDate.getComparisonSign().equals('=')) {
+                result = store.findNotesEqualDate(jsonDate.getDate(), keyset, type);
+            }
+            return page(result);
+        });
     }
 
     /**
-     * Get all notes that contain the specified tag id.
+     * Get one page of notes that contain the specified tag id.
      * @param id tag id.
+     * @param cursor Cursor from previous page, absent for the first page.
+     * @param limit Page size, capped by Keyset.MAX_LIMIT.
+     * @param sort Sort order asc or desc, ignored when cursor passed.
+     * @param view full for notes with text and tags or summary for id, topic, date, tag ids and snippet.
      * @return List maths notes.
      */
     @GetMapping("/findByHashTag/{id}")
-    public List<Note> findByHashTagId(@PathVariable Long id) {
-        return Hibernate.instOf().findNotesByHashTagId(id);
+    public CompletableFuture<ResponseEntity<List<?>>> findByHashTagId(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_LIMIT) int limit,
+            @RequestParam(defaultValue = "asc") String sort,
+            @RequestParam(defaultValue = "full") String view) {
+        Keyset keyset = keyset(cursor, limit, sort);
+        Class<?> type = view(view);
+        return executor.submit(() -> page(store.findNotesByHashTagId(id, keyset, type)));
+    }
+
+    /**
+     * Get one page of notes matching all passed conditions, searched by one query.
+     * Absent parameters do not restrict the result.
+     * @param from Minimal date of creation inclusive, ISO date or date-time.
+     * @param to Maximal date of creation exclusive, ISO date or date-time.
+     * @param all Ids of tags every note must have.
+     * @param any Ids of tags of which every note must have at least one.
+     * @param text Substring of text or topic.
+     * @param cursor Cursor from previous page, absent for the first page.
+     * @param limit Page size, capped by Keyset.MAX_LIMIT.
+     * @param sort Sort order asc or desc, ignored when cursor passed.
+     * @param view full for notes with text and tags or summary for id, topic, date, tag ids and snippet.
+     * @return List maths notes.
+     */
+    @GetMapping("/search")
+    public CompletableFuture<ResponseEntity<List<?>>> search(
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME, fallbackPatterns = "yyyy-MM-dd") Date from,
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME, fallbackPatterns = "yyyy-MM-dd") Date to,
+            @RequestParam(required = false) List<Long> all,
+            @RequestParam(required = false) List<Long> any,
+            @RequestParam(required = false) String text,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_LIMIT) int limit,
+            @RequestParam(defaultValue = "asc") String sort,
+            @RequestParam(defaultValue = "full") String view) {
+        NoteFilter filter = filter(from, to, all, any, text);
+        Keyset keyset = keyset(cursor, limit, sort);
+        Class<?> type = view(view);
+        return executor.submit(() -> page(store.findNotes(filter, keyset, type)));
     }
 
     /**
-     * Get all notes that contain passed sub sting in text or topic fields.
+     * Get one page of notes by combination of tags, answered by in-memory tag index.
+     * Notes are ordered by id, the next page starts after id passed in X-Next-Cursor
+     * header and the number of matching notes is passed in X-Total-Count header.
+     * Empty list does not restrict the result.
+     * @param all Ids of tags every note must have.
+     * @param any Ids of tags of which every note must have at least one.
+     * @param none Ids of tags no note may have.
+     * @param cursor Cursor from previous page, absent for the first page.
+     * @param limit Page size, capped by Keyset.MAX_LIMIT.
+     * @param view full for notes with text and tags or summary for id, topic, date, tag ids and snippet.
+     * @return List maths notes or not found status when the index is disabled.
+     */
+    @GetMapping("/findByTags")
+    public CompletableFuture<ResponseEntity<List<?>>> findByTags(
+            @RequestParam(defaultValue = "") List<Long> all,
+            @RequestParam(defaultValue = "") List<Long> any,
+            @RequestParam(defaultValue = "") List<Long> none,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = DEFAULT_LIMIT) int limit,
+            @RequestParam(defaultValue = "full") String view) {
+        if (tagIndex == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        Class<?> type = view(view);
+        TagIndex.IdPage ids = tagIndex.search(all, any, none, cursor, Keyset.limit(limit));
+        ResponseEntity.BodyBuilder rsl = ResponseEntity.ok().header(TOTAL_COUNT, String.valueOf(ids.getTotal()));
+        if (ids.getNext() != null) {
+            rsl.header(NEXT_CURSOR, String.valueOf(ids.getNext()));
+        }
+        return executor.submit(() -> rsl.body(store.findNotesByIds(ids.getIds(), type)));
+    }
+
+    /**
+     * Count notes with every passed tag, answered by in-memory tag index.
+     * @param ids Tag ids.
+     * @return Number of notes per tag id or not found status when the index is disabled.
+     */
+    @GetMapping("/countByTag")
+    public CompletableFuture<ResponseEntity<Map<Long, Long>>> countByTag(@RequestParam List<Long> ids) {
+        if (tagIndex == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        return executor.submit(() -> ResponseEntity.ok(tagIndex.count(ids)));
+    }
+
+    /**
+     * Get notes that contain passed sub sting in text or topic fields.
+     * By default returns pages ordered by date like other lists, sort relevance
+     * returns one list of up to limit most relevant notes without next cursor.
+     * Ids of matching notes are taken from in-memory index when it is enabled,
+     * its candidates are verified by primary key lookups.
      * @param str substring to search.
+     * @param cursor Cursor from previous page, absent for the first page.
+     * @param limit Page size, capped by Keyset.MAX_LIMIT.
+     * @param sort Sort order asc, desc or relevance, ignored when cursor passed.
+     * @param view full for notes with text and tags or summary for id, topic, date, tag ids and snippet.
      * @return List maths notes.
      */
     @GetMapping("/findByText/{str}")
-    public List<Note> findByText(@PathVariable String str) {
-        return Hibernate.instOf().findNotesWithTextContain(str);
+    public CompletableFuture<ResponseEntity<List<?>>> findByText(
+            @PathVariable String str,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_LIMIT) int limit,
+            @RequestParam(defaultValue = "asc") String sort,
+            @RequestParam(defaultValue = "full") String view) {
+        boolean relevance = cursor == null && "relevance".equalsIgnoreCase(sort);
+        Class<?> type = view(view);
+        if (textIndex != null && textIndex.supports(str)) {
+            if (relevance) {
+                return executor.submit(() -> ResponseEntity.ok(
+                        store.findNotesByIds(textIndex.searchByRelevance(str, Keyset.limit(limit)), type)));
+            }
+            Keyset keyset = keyset(cursor, limit, sort);
+            return executor.submit(() -> {
+                Page<Long> ids = textIndex.search(str, keyset);
+                return page(new Page<>(store.findNotesByIds(ids.getItems(), type), ids.getNext()));
+            });
+        }
+        if (relevance) {
+            return executor.submit(() -> ResponseEntity.ok(
+                    store.findNotesWithTextContainByRelevance(str, Keyset.limit(limit), type)));
+        }
+        Keyset keyset = keyset(cursor, limit, sort);
+        return executor.submit(() -> page(store.findNotesWithTextContain(str, keyset, type)));
+    }
+
+    /**
+     * Note was changed by another request since it was read.
+     * @param e Exception thrown on version check.
+     * @return Conflict status with reason.
+     */
+    @ExceptionHandler({StaleStateException.class, OptimisticLockException.class})
+    public ResponseEntity<String> conflict(RuntimeException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
+    /**
+     * Store executor queue is full or there is no idle thread for a stream,
+     * the request is not queued behind the others.
+     * @param e Exception thrown on submit.
+     * @return Service unavailable status, the client may retry after a second.
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> overloaded(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("Too many concurrent requests");
+    }
+
+    /**
+     * Rejected parameters: malformed cursor, limit, sort order or view, empty date range,
+     * unknown tag or unknown export format. Other illegal arguments are not client errors.
+     * @param e Exception thrown on validation.
+     * @return Bad request status with reason.
+     */
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<String> badRequest(InvalidRequestException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    /**
+     * The method write exported notes as newline delimited json.
+     * @param out Response body.
+     * @param since Minimal date of creation, null for all notes.
+     * @throws IOException if response can not be written.
+     */
+    private void exportJson(OutputStream out, Date since) throws IOException {
+        try (JsonGenerator json = writer.getFactory().createGenerator(out)) {
+            json.setRootValueSeparator(null);
+            store.exportNotes(since, note -> {
+                try {
+                    writer.writeValue(json, note);
+                    json.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * The method write exported notes as csv with header line, values are quoted
+     * when needed as described in RFC 4180.
+     * @param out Response body.
+     * @param since Minimal date of creation, null for all notes.
+     * @throws IOException if response can not be written.
+     */
+    private void exportCsv(OutputStream out, Date since) throws IOException {
+        try (Writer csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            csv.write("id,dateCreate,topic,text,tagIds,tags\r\n");
+            store.exportNotes(since, note -> {
+                final StringJoiner ids = new StringJoiner("|");
+                final StringJoiner titles = new StringJoiner("|");
+                for (HashTag tag : note.getHashTag()) {
+                    ids.add(String.valueOf(tag.getId()));
+                    titles.add(tag.getTitle() == null ? "" : tag.getTitle());
+                }
+                try {
+                    csv.write(note.getId() + ","
+                            + (note.getDateCreate() == null ? "" : note.getDateCreate().toInstant()) + ","
+                            + csvValue(note.getTopic()) + ","
+                            + csvValue(note.getText()) + ","
+                            + ids + ","
+                            + csvValue(titles.toString()) + "\r\n");
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * The method quote csv value containing separators, quotes or line breaks.
+     * @param value Value, may be null.
+     * @return Value ready to write.
+     */
+    private static String csvValue(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * The method persist notes by chunks, each chunk in one transaction.
+     * Notes without text or date are rejected, when chunk transaction fails
+     * all notes of the chunk are reported as failed.
+     * @param notes Notes to persist.
+     * @return Result of every note.
+     */
+    private List<BatchResult> importNotes(Iterator<Note> notes) {
+        List<BatchResult> results = new ArrayList<>();
+        List<Note> chunk = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        int index = 0;
+        boolean next = true;
+        while (next) {
+            Note note = null;
+            try {
+                next = notes.hasNext();
+                note = next ? notes.next() : null;
+            } catch (RuntimeException e) {
+                results.add(BatchResult.of(index, null, BatchResult.Status.FAILED, e.getMessage()));
+                next = false;
+            }
+            if (note != null && (note.getText() == null || note.getDateCreate() == null)) {
+                results.add(BatchResult.of(index, null, BatchResult.Status.REJECTED,
+                        "text and dateCreate are required"));
+            } else if (note != null) {
+                chunk.add(note);
+                indexes.add(index);
+            }
+            if (!chunk.isEmpty() && (chunk.size() == batchChunkSize || !next)) {
+                results.addAll(importChunk(chunk, indexes));
+                chunk.clear();
+                indexes.clear();
+            }
+            index++;
+        }
+        results.sort(Comparator.comparingInt(BatchResult::getIndex));
+        return results;
+    }
+
+    /**
+     * The method persist one chunk of batch import in one transaction.
+     * @param chunk Valid notes.
+     * @param indexes Position of each note in request.
+     * @return Result of every note of chunk.
+     */
+    private List<BatchResult> importChunk(List<Note> chunk, List<Integer> indexes) {
+        List<BatchResult> results = new ArrayList<>();
+        try {
+            List<Note> created = store.createNotes(new ArrayList<>(chunk));
+            for (int i = 0; i < created.size(); i++) {
+                results.add(BatchResult.of(indexes.get(i), created.get(i).getId(),
+                        BatchResult.Status.CREATED, null));
+            }
+        } catch (RuntimeException e) {
+            for (Integer failed : indexes) {
+                results.add(BatchResult.of(failed, null, BatchResult.Status.FAILED, e.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * The method build note filter from request parameters, absent ones do not restrict notes.
+     * @param from Minimal date of creation inclusive.
+     * @param to Maximal date of creation exclusive.
+     * @param all Ids of tags every note must have.
+     * @param any Ids of tags of which every note must have at least one.
+     * @param text Substring of text or topic.
+     * @return Filter.
+     */
+    private static NoteFilter filter(Date from, Date to, List<Long> all, List<Long> any, String text) {
+        return NoteFilter.none()
+                .from(from)
+                .to(to)
+                .withAllTags(all)
+                .withAnyTags(any)
+                .containing(text);
+    }
+
+    /**
+     * The method resolve page position from request parameters.
+     * @param cursor Cursor from previous page or null.
+     * @param limit Page size.
+     * @param sort Sort order of the first page.
+     * @return Keyset.
+     */
+    private static Keyset keyset(String cursor, int limit, String sort) {
+        return cursor == null ? Keyset.first(limit, sort) : Keyset.fromCursor(cursor, limit);
+    }
+
+    /**
+     * The method build response with page items in body and next cursor in header.
+     * @param page Page from store.
+     * @return Response.
+     */
+    private static ResponseEntity<List<?>> page(Page<?> page) {
+        ResponseEntity.BodyBuilder rsl = ResponseEntity.ok();
+        if (page.getNext() != null) {
+            rsl.header(NEXT_CURSOR, page.getNext().toCursor());
+        }
+        return rsl.body(page.getItems());
+    }
+
+    /**
+     * The method resolve list view by name.
+     * @param view full or summary.
+     * @return Type of list items.
+     */
+    private static Class<?> view(String view) {
+        if ("full".equals(view)) {
+            return Note.class;
+        }
+        if ("summary".equals(view)) {
+            return NoteSummary.class;
+        }
+        throw new InvalidRequestException("Unknown view: " + view);
     }
 }
\ No newline at end of file
@@ -0,0 +1,74 @@
+package ru.rrusanov.notes.controllers;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.rrusanov.notes.domain.jsonmapper.TagStat;
+import ru.rrusanov.notes.store.InvalidRequestException;
+import ru.rrusanov.notes.store.Keyset;
+import ru.rrusanov.notes.store.TagStats;
+import ru.rrusanov.notes.store.TagSuggest;
+
+import java.util.List;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe REST Controller working with hashtag entity.
+ */
+@RestController
+@RequestMapping("/tag")
+public class TagController {
+    /**
+     * Number of notes per tag.
+     */
+    private final TagStats stats;
+    /**
+     * Completion of tag titles.
+     */
+    private final TagSuggest suggest;
+
+    public TagController(TagStats stats, TagSuggest suggest) {
+        this.stats = stats;
+        this.suggest = suggest;
+    }
+
+    /**
+     * Return number of notes of every tag from in-memory counters, without DB access.
+     * @return Tags with number of notes, the most used first.
+     */
+    @GetMapping("/stats")
+    public List<TagStat> stats() {
+        return stats.stats();
+    }
+
+    /**
+     * Return tags with title starting with prefix, case insensitive, from in-memory
+     * sorted titles, without DB access.
+     * @param prefix Beginning of title, not empty.
+     * @param limit Maximal number of tags.
+     * @return Tags with number of notes, the most used first.
+     */
+    @GetMapping("/suggest")
+    public List<TagStat> suggest(@RequestParam String prefix,
+                                 @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > Keyset.MAX_LIMIT) {
+            throw new InvalidRequestException("Limit must be between 1 and " + Keyset.MAX_LIMIT);
+        }
+        return suggest.suggest(prefix, limit);
+    }
+
+    /**
+     * Malformed limit or empty prefix.
+     * @param e Exception thrown on validation.
+     * @return Bad request status with reason.
+     */
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<String> badRequest(InvalidRequestException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
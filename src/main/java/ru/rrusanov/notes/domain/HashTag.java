@@ -1,25 +1,41 @@
 package ru.rrusanov.notes.domain;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
-import java.util.Objects;
+import javax.persistence.SequenceGenerator;
 
 /**
  * @author Roman Rusanov
  * @since 21.06.2021
  * email roman9628@gmail.com
  * Class describe instance of HashTag.
+ * Tags are equal when they have the same id, tags not persisted yet are equal only to themselves.
  */
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class HashTag {
 
+    /**
+     * Tags are inserted by upsert taking id from the sequence one by one, see Hibernate.resolveTags.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "hashtag_id_seq")
+    @SequenceGenerator(name = "hashtag_id_seq", sequenceName = "hashtag_id_seq", allocationSize = 1)
     private Long id;
     private String title;
 
+    public static HashTag of(Long id, String title) {
+        HashTag tag = new HashTag();
+        tag.id = id;
+        tag.title = title;
+        return tag;
+    }
+
     public Long getId() {
         return id;
     }
@@ -41,12 +57,16 @@ public class HashTag {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         HashTag hashTag = (HashTag) o;
-        return Objects.equals(id, hashTag.id);
+        return id != null && id.equals(hashTag.id);
     }
 
+    /**
+     * Hash does not change when tag is persisted, so the tag can be added to a set before.
+     * @return Hash of class.
+     */
     @Override
     public int hashCode() {
-        return Objects.hash(id);
+        return getClass().hashCode();
     }
 
     @Override
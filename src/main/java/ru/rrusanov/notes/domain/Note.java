@@ -1,9 +1,14 @@
 package ru.rrusanov.notes.domain;
 
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.Fetch;
 import org.hibernate.annotations.FetchMode;
 
 import javax.persistence.CascadeType;
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
@@ -11,13 +16,18 @@ import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
-import java.util.ArrayList;
+import javax.persistence.Version;
+import java.util.Collection;
 import java.util.Date;
-import java.util.List;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Objects;
+import java.util.Set;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.google.gson.Gson;
 
 
@@ -27,12 +37,20 @@ import com.google.gson.Gson;
  * email roman9628@gmail.com
  * Class describe instance of note. Note related with HashTag by id fields.
  * Relation ManyToMany describe in table note_hashtag
+ * Tags are loaded eagerly, joined when note is loaded by id. HQL queries ignore the join,
+ * so tags of all notes of a query are loaded by batches, one select covers the largest page.
+ * Tags are a set changed in place, so only added and removed links are written. Update
+ * statement contains changed columns only and is checked against version of the note.
  */
 @Entity
+@DynamicUpdate
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Note {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "note_id_seq")
+    @SequenceGenerator(name = "note_id_seq", sequenceName = "note_id_seq", allocationSize = 50)
     private Long id;
+    @Column(columnDefinition = "text")
     private String text;
     @Temporal(TemporalType.TIMESTAMP)
     private Date dateCreate;
@@ -40,9 +58,13 @@ public class Note {
             joinColumns = @JoinColumn(name = "note_id"),
             inverseJoinColumns = @JoinColumn(name = "hashtag_id"))
     @Fetch(FetchMode.JOIN)
+    @BatchSize(size = 1024)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @ManyToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE})
-    private List<HashTag> hashTag = new ArrayList<>();
+    private Set<HashTag> hashTag = new LinkedHashSet<>();
     private String topic;
+    @Version
+    private Long version;
 
     public static Note of(String text, Date dateCreate) {
         Note note = new Note();
@@ -79,12 +101,21 @@ public class Note {
         this.dateCreate = dateCreate;
     }
 
-    public List<HashTag> getHashTag() {
+    public Set<HashTag> getHashTag() {
         return hashTag;
     }
 
-    public void setHashTag(List<HashTag> hashTag) {
-        this.hashTag = hashTag;
+    public void setHashTag(Collection<HashTag> hashTag) {
+        this.hashTag = new LinkedHashSet<>(hashTag);
+    }
+
+    /**
+     * The method change tags to passed ones in place, tags already present are kept.
+     * @param tags Persisted tags.
+     */
+    public void replaceHashTags(Collection<HashTag> tags) {
+        this.hashTag.retainAll(new HashSet<>(tags));
+        this.hashTag.addAll(tags);
     }
 
     public String getTopic() {
@@ -95,6 +126,14 @@ public class Note {
         this.topic = topic;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -116,9 +155,11 @@ public class Note {
                 ", dateCreate=" + dateCreate +
                 ", hashTag=" + hashTag +
                 ", topic='" + topic + '\'' +
+                ", version=" + version +
                 '}';
     }
 
+    @JsonIgnore
     public String getJson() {
         return new Gson().toJson(this);
     }
@@ -0,0 +1,100 @@
+package ru.rrusanov.notes.domain.jsonmapper;
+
+import java.util.Objects;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe outcome of one note of batch import, mapped to json response.
+ */
+public class BatchResult {
+
+    /**
+     * Outcome of the item.
+     */
+    public enum Status {
+        /**
+         * Note persisted.
+         */
+        CREATED,
+        /**
+         * Note is not valid and was skipped.
+         */
+        REJECTED,
+        /**
+         * Note could not be read or the transaction with it was rolled back.
+         */
+        FAILED
+    }
+
+    private int index;
+    private Long id;
+    private Status status;
+    private String error;
+
+    public static BatchResult of(int index, Long id, Status status, String error) {
+        BatchResult result = new BatchResult();
+        result.index = index;
+        result.id = id;
+        result.status = status;
+        result.error = error;
+        return result;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        BatchResult that = (BatchResult) o;
+        return index == that.index && Objects.equals(id, that.id)
+                && status == that.status && Objects.equals(error, that.error);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(index, id, status, error);
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "index=" + index +
+                ", id=" + id +
+                ", status=" + status +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,33 @@
+package ru.rrusanov.notes.domain.jsonmapper;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe result of bulk operation on notes, mapped to json response.
+ */
+public class BulkResult {
+
+    private long affected;
+
+    public static BulkResult of(long affected) {
+        BulkResult result = new BulkResult();
+        result.affected = affected;
+        return result;
+    }
+
+    public long getAffected() {
+        return affected;
+    }
+
+    public void setAffected(long affected) {
+        this.affected = affected;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkResult{" +
+                "affected=" + affected +
+                '}';
+    }
+}
@@ -0,0 +1,95 @@
+package ru.rrusanov.notes.domain.jsonmapper;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe short view of note for lists, mapped to json response.
+ * Contains ids of tags and only the beginning of note text.
+ */
+public class NoteSummary {
+
+    private Long id;
+    private String topic;
+    private Date dateCreate;
+    private List<Long> tagIds = new ArrayList<>();
+    private String snippet;
+
+    public static NoteSummary of(Long id, String topic, Date dateCreate, String snippet) {
+        NoteSummary summary = new NoteSummary();
+        summary.id = id;
+        summary.topic = topic;
+        summary.dateCreate = dateCreate;
+        summary.snippet = snippet;
+        return summary;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    public Date getDateCreate() {
+        return dateCreate;
+    }
+
+    public void setDateCreate(Date dateCreate) {
+        this.dateCreate = dateCreate;
+    }
+
+    public List<Long> getTagIds() {
+        return tagIds;
+    }
+
+    public void setTagIds(List<Long> tagIds) {
+        this.tagIds = tagIds;
+    }
+
+    public String getSnippet() {
+        return snippet;
+    }
+
+    public void setSnippet(String snippet) {
+        this.snippet = snippet;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        NoteSummary that = (NoteSummary) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "NoteSummary{" +
+                "id=" + id +
+                ", topic='" + topic + '\'' +
+                ", dateCreate=" + dateCreate +
+                ", tagIds=" + tagIds +
+                ", snippet='" + snippet + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,78 @@
+package ru.rrusanov.notes.domain.jsonmapper;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe statement executed longer than the threshold, mapped to json response.
+ * Instances are not changed after capture.
+ */
+public class SlowQuery {
+
+    private Date time;
+    private long duration;
+    private String operation;
+    private String sql;
+    private List<List<String>> parameters;
+    private boolean success;
+
+    /**
+     * @param time End of execution.
+     * @param duration Execution time in milliseconds.
+     * @param operation Store method that executed the statement, null outside of store.
+     * @param sql Statement.
+     * @param parameters Bind parameters of every batch entry.
+     * @param success False when the statement failed.
+     * @return Captured statement.
+     */
+    public static SlowQuery of(Date time, long duration, String operation, String sql,
+                               List<List<String>> parameters, boolean success) {
+        SlowQuery query = new SlowQuery();
+        query.time = time;
+        query.duration = duration;
+        query.operation = operation;
+        query.sql = sql;
+        query.parameters = parameters;
+        query.success = success;
+        return query;
+    }
+
+    public Date getTime() {
+        return time;
+    }
+
+    public long getDuration() {
+        return duration;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public List<List<String>> getParameters() {
+        return parameters;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    @Override
+    public String toString() {
+        return "SlowQuery{" +
+                "time=" + time +
+                ", duration=" + duration +
+                ", operation='" + operation + '\'' +
+                ", sql='" + sql + '\'' +
+                ", parameters=" + parameters +
+                ", success=" + success +
+                '}';
+    }
+}
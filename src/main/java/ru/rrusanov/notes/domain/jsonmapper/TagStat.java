@@ -0,0 +1,71 @@
+package ru.rrusanov.notes.domain.jsonmapper;
+
+import java.util.Objects;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe number of notes with one tag, mapped to json response.
+ */
+public class TagStat {
+
+    private Long id;
+    private String title;
+    private long count;
+
+    public static TagStat of(Long id, String title, long count) {
+        TagStat stat = new TagStat();
+        stat.id = id;
+        stat.title = title;
+        stat.count = count;
+        return stat;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TagStat tagStat = (TagStat) o;
+        return count == tagStat.count && Objects.equals(id, tagStat.id)
+                && Objects.equals(title, tagStat.title);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, title, count);
+    }
+
+    @Override
+    public String toString() {
+        return "TagStat{" +
+                "id=" + id +
+                ", title='" + title + '\'' +
+                ", count=" + count +
+                '}';
+    }
+}
@@ -1,20 +1,57 @@
 package ru.rrusanov.notes.store;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
+import org.hibernate.StaleObjectStateException;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
 import org.hibernate.boot.MetadataSources;
 import org.hibernate.boot.registry.StandardServiceRegistry;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.cache.spi.DomainDataRegion;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.NativeQuery;
 import org.hibernate.query.Query;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.hibernate.type.StandardBasicTypes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import ru.rrusanov.notes.domain.HashTag;
 import ru.rrusanov.notes.domain.Note;
+import ru.rrusanov.notes.domain.jsonmapper.NoteSummary;
+import ru.rrusanov.notes.domain.jsonmapper.TagStat;
 
+import javax.sql.DataSource;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
 
 /**
  * @author Roman Rusanov
@@ -23,40 +60,170 @@ import java.util.function.Function;
  * email roman9628@gmail.com
  * The class describe interaction ORM to DB.
  */
-public class Hibernate implements AutoCloseable {
+public class Hibernate implements AutoCloseable, MeterBinder {
     /**
      * The instance with logger.
      */
     private static final Logger LOG = LoggerFactory.getLogger(Hibernate.class.getName());
+    /**
+     * Rows fetched from the server-side cursor per round-trip while streaming.
+     */
+    private static final int FETCH_SIZE = 500;
+    /**
+     * Number of leading chars of text selected for note summary.
+     */
+    public static final int SNIPPET_LENGTH = 100;
+    /**
+     * HQL columns of note summary on alias n.
+     */
+    private static final String SUMMARY_COLUMNS =
+            "n.id, n.topic, n.dateCreate, substring(n.text, 1, " + SNIPPET_LENGTH + ")";
+    /**
+     * Name of store method running in current thread, the innermost one.
+     */
+    private static final ThreadLocal<String> OPERATION = new ThreadLocal<>();
     /**
      * Registry for hibernate configuration.
      */
-    private final StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
-            .configure().build();
+    private final StandardServiceRegistry registry;
     /**
      * Session factory for hibernate interaction.
      */
-    private final SessionFactory sf = new MetadataSources(registry)
-            .buildMetadata().buildSessionFactory();
+    private final SessionFactory sf;
+    /**
+     * Session of the unit of work running in current thread, if any.
+     */
+    private final ThreadLocal<Session> current = new ThreadLocal<>();
+    /**
+     * Persisted tags, filled after commit.
+     */
+    private final TagCache tagCache;
+    /**
+     * Listeners notified about committed changes of notes.
+     */
+    private final List<StoreListener> listeners = new CopyOnWriteArrayList<>();
+    /**
+     * Timers of store operations and transactions.
+     */
+    private final StoreMetrics metrics = new StoreMetrics();
+    /**
+     * Meters of session factory statistics, created by the first bindTo when statistics are enabled.
+     */
+    private volatile StatisticsMetrics statisticsMetrics;
+
+    /**
+     * The constructor build session factory from hibernate.cfg.xml
+     * on top of passed pooled data source.
+     * @param dataSource Data source shared with the rest of application.
+     * @param tagCache Cache of persisted tags.
+     */
+    public Hibernate(DataSource dataSource, TagCache tagCache) {
+        this(dataSource, tagCache, Collections.emptyMap());
+    }
+
+    /**
+     * The constructor build session factory from hibernate.cfg.xml
+     * on top of passed pooled data source, passed settings override the file.
+     * @param dataSource Data source shared with the rest of application.
+     * @param tagCache Cache of persisted tags.
+     * @param settings Additional hibernate settings, see {@link #secondLevelCache}.
+     */
+    public Hibernate(DataSource dataSource, TagCache tagCache, Map<String, Object> settings) {
+        this.tagCache = tagCache;
+        this.registry = new StandardServiceRegistryBuilder()
+                .configure()
+                .applySettings(settings)
+                .applySetting(AvailableSettings.DATASOURCE, dataSource)
+                .build();
+        try {
+            this.sf = new MetadataSources(registry).buildMetadata().buildSessionFactory();
+        } catch (final Exception e) {
+            StandardServiceRegistryBuilder.destroy(registry);
+            throw e;
+        }
+    }
+
+    /**
+     * The method build settings enabling second-level cache of entities and collections
+     * marked with @Cache and cache of findNotes* query results, both kept by JCache
+     * provider in bounded regions with ttl. Cache statistics are collected for metrics.
+     * @param config Ehcache configuration on classpath, every region must be declared.
+     * @return Hibernate settings.
+     */
+    public static Map<String, Object> secondLevelCache(String config) {
+        final Map<String, Object> settings = new HashMap<>();
+        settings.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+        settings.put(AvailableSettings.USE_QUERY_CACHE, true);
+        settings.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+        settings.put(ConfigSettings.PROVIDER, "org.ehcache.jsr107.EhcacheCachingProvider");
+        settings.put(ConfigSettings.CONFIG_URI, config);
+        settings.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        settings.put(AvailableSettings.GENERATE_STATISTICS, true);
+        return settings;
+    }
 
     /**
-     * The inner class guarantees that only one instance is initialized.
+     * @return Statistics of the session factory, collected when hibernate.generate_statistics is set.
      */
-    private static final class Lazy {
-        private static final Hibernate INST = new Hibernate();
+    public Statistics getStatistics() {
+        return sf.getStatistics();
     }
 
     /**
-     * Default private constructor.
+     * The method export timers of store operations and transactions. When statistics are
+     * enabled also session factory statistics (hibernate.* meters: statements, entity loads,
+     * query executions and the slowest one, see {@link StatisticsMetrics})
+     * and hit and miss counters and hit ratio of every second-level cache region and of query cache.
+     * @param registry Meter registry.
      */
-    private Hibernate() {
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        metrics.bindTo(registry);
+        final Statistics stats = sf.getStatistics();
+        if (!stats.isStatisticsEnabled()) {
+            return;
+        }
+        synchronized (this) {
+            if (statisticsMetrics == null) {
+                statisticsMetrics = new StatisticsMetrics(stats);
+            }
+        }
+        statisticsMetrics.bindTo(registry);
+        if (!sf.getSessionFactoryOptions().isSecondLevelCacheEnabled()) {
+            return;
+        }
+        final CacheImplementor cache = sf.unwrap(SessionFactoryImplementor.class).getCache();
+        for (String region : cache.getCacheRegionNames()) {
+            if (cache.getRegion(region) instanceof DomainDataRegion) {
+                bindCache(registry, region, stats.getDomainDataRegionStatistics(region),
+                        CacheRegionStatistics::getHitCount, CacheRegionStatistics::getMissCount);
+            }
+        }
+        if (sf.getSessionFactoryOptions().isQueryCacheEnabled()) {
+            bindCache(registry, "query", stats,
+                    Statistics::getQueryCacheHitCount, Statistics::getQueryCacheMissCount);
+        }
     }
+
     /**
-     * The method create and get instance.
-     * @return Hibernate.
+     * The method register hibernate.cache.requests counters and hibernate.cache.hit.ratio gauge.
+     * @param registry Meter registry.
+     * @param region Region name.
+     * @param source Statistics object.
+     * @param hits Hit count of source.
+     * @param misses Miss count of source.
+     * @param <S> Statistics type.
      */
-    public static Hibernate instOf() {
-        return Lazy.INST;
+    private static <S> void bindCache(MeterRegistry registry, String region, S source,
+                                      ToDoubleFunction<S> hits, ToDoubleFunction<S> misses) {
+        FunctionCounter.builder("hibernate.cache.requests", source, hits)
+                .tags("region", region, "result", "hit").register(registry);
+        FunctionCounter.builder("hibernate.cache.requests", source, misses)
+                .tags("region", region, "result", "miss").register(registry);
+        Gauge.builder("hibernate.cache.hit.ratio", source, s -> {
+            final double total = hits.applyAsDouble(s) + misses.applyAsDouble(s);
+            return total == 0 ? 0 : hits.applyAsDouble(s) / total;
+        }).tag("region", region).register(registry);
     }
 
     /**
@@ -64,203 +231,1006 @@ public class Hibernate implements AutoCloseable {
      */
     @Override
     public void close() {
+        sf.close();
         StandardServiceRegistryBuilder.destroy(registry);
     }
 
+    /**
+     * The method register listener of committed changes.
+     * @param listener Listener.
+     */
+    public void addListener(StoreListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * The method run passed work in one session and one transaction.
+     * Store methods called inside the work join it instead of opening their own,
+     * so an entity loaded once is served from the session cache afterwards
+     * and all changes are committed or rolled back together.
+     * @param work Operation calling store methods.
+     * @param <T> Expected type.
+     * @return Result of the work.
+     */
+    public <T> T unitOfWork(Supplier<T> work) {
+        return this.tx("unitOfWork", session -> work.get());
+    }
+
     /**
      * The method execute query to DB.
+     * Joins the unit of work of current thread when there is one.
+     * Duration and rows of the call are recorded as the named operation
+     * of the endpoint in MDC of current thread.
+     * @param operation Name of store method.
      * @param command lambda with custom query.
      * @param <T> Expected type.
      * @return Instance created by hibernate.
      */
-    private <T> T tx(final Function<Session, T> command) {
+    private <T> T tx(final String operation, final Function<Session, T> command) {
+        final StoreMetrics.Operation meters = metrics.operation(operation, MDC.get(StoreMetrics.ENDPOINT));
+        final String outer = OPERATION.get();
+        OPERATION.set(operation);
+        final long start = System.nanoTime();
+        T rsl = null;
+        boolean failed = true;
+        try {
+            rsl = this.execute(meters, command);
+            failed = false;
+            return rsl;
+        } finally {
+            meters.called(System.nanoTime() - start, rsl, failed);
+            OPERATION.set(outer);
+        }
+    }
+
+    /**
+     * @return Name of store method running in current thread, null outside of store.
+     */
+    public static String currentOperation() {
+        return OPERATION.get();
+    }
+
+    /**
+     * The method run command in the session of current unit of work or in a new transaction.
+     * @param meters Meters of the operation opening transaction.
+     * @param command lambda with custom query.
+     * @param <T> Expected type.
+     * @return Result of the command.
+     */
+    private <T> T execute(final StoreMetrics.Operation meters, final Function<Session, T> command) {
+        final Session bound = current.get();
+        if (bound != null) {
+            return command.apply(bound);
+        }
+        final long start = System.nanoTime();
         final Session session = sf.openSession();
         final Transaction tx = session.beginTransaction();
+        meters.acquired(System.nanoTime() - start);
+        current.set(session);
         try {
             T rsl = command.apply(session);
             tx.commit();
+            meters.completed(System.nanoTime() - start, true);
             LOG.debug("Transaction commit");
             return rsl;
         } catch (final Exception e) {
             session.getTransaction().rollback();
+            meters.completed(System.nanoTime() - start, false);
             throw e;
         } finally {
+            current.remove();
             session.close();
         }
     }
 
+    /**
+     * The method run action once the transaction of passed session is committed.
+     * Nothing is run on rollback.
+     * @param session Opened session.
+     * @param action Action to run.
+     */
+    private static void afterCommit(Session session, Runnable action) {
+        session.getTransaction().registerSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+
     /**
      * The methods add model to DB.
+     * Persisted tags are put to tag cache after commit.
      * @param model Instance model.
      * @param <T> Class model.
      * @return instance of model.
      */
     public <T> T createModel(T model) {
-        return this.tx(session -> {
+        return this.tx("createModel", session -> {
             session.save(model);
             LOG.debug("Entity persisted: {}", model);
+            if (model instanceof HashTag) {
+                afterCommit(session, () -> {
+                    tagCache.put((HashTag) model);
+                    listeners.forEach(l -> l.tagCreated((HashTag) model));
+                });
+            }
+            if (model instanceof Note) {
+                afterCommit(session, () -> listeners.forEach(l -> l.noteCreated((Note) model)));
+            }
             return model;
         });
     }
 
     /**
-     * The Method return all items.
-     * @return items collection.
+     * The method persist passed notes in one transaction. Tags of all notes are
+     * resolved together, inserts are sent in JDBC batches of hibernate.jdbc.batch_size
+     * and the session is cleared after each batch.
+     * @param notes New notes, ids are ignored.
+     * @return Persisted notes with ids.
+     */
+    public List<Note> createNotes(List<Note> notes) {
+        final List<HashTag> tags = new ArrayList<>();
+        notes.forEach(note -> tags.addAll(note.getHashTag()));
+        return this.tx("createNotes", session -> {
+            final Map<Long, HashTag> byId = new HashMap<>();
+            final Map<String, HashTag> byTitle = new HashMap<>();
+            for (HashTag tag : this.resolveTags(tags)) {
+                byId.put(tag.getId(), tag);
+                if (tag.getTitle() != null) {
+                    byTitle.put(tag.getTitle(), tag);
+                }
+            }
+            final int batchSize = Math.max(1, sf.getSessionFactoryOptions().getJdbcBatchSize());
+            for (int i = 0; i < notes.size(); i++) {
+                final Note note = notes.get(i);
+                final Set<HashTag> noteTags = new LinkedHashSet<>();
+                for (HashTag tag : note.getHashTag()) {
+                    final HashTag persisted = byId.containsKey(tag.getId())
+                            ? byId.get(tag.getId()) : byTitle.get(tag.getTitle());
+                    if (persisted != null) {
+                        noteTags.add(persisted);
+                    }
+                }
+                note.setId(null);
+                note.setVersion(null);
+                note.setHashTag(noteTags);
+                session.save(note);
+                if ((i + 1) % batchSize == 0) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+            afterCommit(session, () -> notes.forEach(
+                    note -> listeners.forEach(l -> l.noteCreated(note))));
+            return notes;
+        });
+    }
+
+    /**
+     * The Method return one page of all items.
+     * @param keyset Page position.
+     * @param view Note.class for full notes or NoteSummary.class for summaries.
+     * @param <T> View type.
+     * @return Page of items.
      */
-    public List<Note> findAllNotes() {
-        return this.tx(
-                session -> session.createQuery(
-                        "select distinct n from Note n", Note.class).list()
+    public <T> Page<T> findAllNotes(Keyset keyset, Class<T> view) {
+        return this.tx("findAllNotes",
+                session -> this.page(session, "", Collections.emptyMap(), keyset, view)
         );
     }
 
+    /**
+     * The method passes every note with tags to the consumer as soon as it is read
+     * from a server-side cursor, the whole table is never held in memory.
+     * Notes and tags are read by one joined query, see {@link #exportNotes}.
+     * @param consumer Action applied to each note.
+     */
+    public void forEachNote(Consumer<Note> consumer) {
+        this.exportNotes(null, consumer);
+    }
+
+    /**
+     * The method pass every note created at or after passed date to consumer, with tags,
+     * in id order. Notes and their tags are read by one joined query through a DB cursor,
+     * rows of one note are grouped back, so memory usage does not depend on table size.
+     * Passed notes are detached copies.
+     * @param since Minimal date of creation, null for all notes.
+     * @param consumer Receiver of notes.
+     */
+    public void exportNotes(Date since, Consumer<Note> consumer) {
+        this.tx("exportNotes", session -> {
+            final Query<Object[]> query = session.createQuery(
+                    "select n.id, n.text, n.topic, n.dateCreate, t.id, t.title"
+                            + " from Note n left join n.hashTag t"
+                            + (since == null ? "" : " where n.dateCreate >= :since")
+                            + " order by n.id", Object[].class);
+            if (since != null) {
+                query.setParameter("since", since);
+            }
+            try (ScrollableResults rows = query
+                    .setFetchSize(FETCH_SIZE)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                Note note = null;
+                while (rows.next()) {
+                    final Long id = (Long) rows.get(0);
+                    if (note == null || !note.getId().equals(id)) {
+                        if (note != null) {
+                            consumer.accept(note);
+                        }
+                        note = Note.of((String) rows.get(1), (Date) rows.get(3));
+                        note.setId(id);
+                        note.setTopic((String) rows.get(2));
+                    }
+                    if (rows.get(4) != null) {
+                        note.addHashTag(HashTag.of((Long) rows.get(4), (String) rows.get(5)));
+                    }
+                }
+                if (note != null) {
+                    consumer.accept(note);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * The method pass id of every note with id of every its tag to consumer,
+     * note without tags is passed once with null tag id. Rows are read from
+     * a server-side cursor over note and relation tables only.
+     * @param consumer Receiver of note id and tag id.
+     */
+    public void forEachNoteTagLink(BiConsumer<Long, Long> consumer) {
+        this.tx("forEachNoteTagLink", session -> {
+            try (ScrollableResults rows = session.createNativeQuery(
+                    "select n.id as note_id, nh.hashtag_id from note n"
+                            + " left join note_hashtag nh on nh.note_id = n.id")
+                    .addScalar("note_id", StandardBasicTypes.LONG)
+                    .addScalar("hashtag_id", StandardBasicTypes.LONG)
+                    .setFetchSize(FETCH_SIZE)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                while (rows.next()) {
+                    consumer.accept((Long) rows.get(0), (Long) rows.get(1));
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * The method find all tags.
+     * @return Tags.
+     */
+    public List<HashTag> findAllTags() {
+        return this.tx("findAllTags", session -> session.createQuery("select h from HashTag h", HashTag.class).list());
+    }
+
+    /**
+     * The method count notes of every tag by one grouped query on relation table.
+     * @return Number of notes per tag, including unused tags.
+     */
+    public List<TagStat> countNotesByTag() {
+        return this.tx("countNotesByTag", session -> {
+            @SuppressWarnings("unchecked")
+            final List<Object[]> rows = session.createNativeQuery(
+                    "select h.id, h.title, count(nh.note_id) as notes from hashtag h"
+                            + " left join note_hashtag nh on nh.hashtag_id = h.id group by h.id, h.title")
+                    .addScalar("id", StandardBasicTypes.LONG)
+                    .addScalar("title", StandardBasicTypes.STRING)
+                    .addScalar("notes", StandardBasicTypes.LONG)
+                    .list();
+            final List<TagStat> rsl = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                rsl.add(TagStat.of((Long) row[0], (String) row[1], (Long) row[2]));
+            }
+            return rsl;
+        });
+    }
+
     /**
      * The method takes an note to update the id field it finds in the note collection.
-     * In that schema implementations passed id param must exist in DB.
-     * @param note note to need update.
-     */
-    public void updateNote(Note note) {
-        Note noteToUpdate = this.findNoteById(note.getId());
-        noteToUpdate.setId(note.getId());
-        if (!note.getHashTag().isEmpty()) {
-            noteToUpdate.setHashTag(note.getHashTag());
-        }
-        noteToUpdate.setText(note.getText());
-        noteToUpdate.setDateCreate(note.getDateCreate());
-        noteToUpdate.setTopic(note.getTopic());
-        this.tx(session -> {
-            session.update(noteToUpdate);
-            return noteToUpdate;
+     * Topic is replaced, text and date are replaced when passed note has them, so the
+     * required fields are never removed, tags are replaced when passed note has any.
+     * @param note note to need update, with version read by client or null to skip the check.
+     * @return Updated note, null when there is no note with id.
+     */
+    public Note updateNote(Note note) {
+        return this.changeNote(note.getId(), note.getVersion(), managed -> {
+            if (!note.getHashTag().isEmpty()) {
+                managed.replaceHashTags(note.getHashTag());
+            }
+            if (note.getText() != null) {
+                managed.setText(note.getText());
+            }
+            if (note.getDateCreate() != null) {
+                managed.setDateCreate(note.getDateCreate());
+            }
+            managed.setTopic(note.getTopic());
+        });
+    }
+
+    /**
+     * The method apply changes to managed note with passed id. Changes are flushed on
+     * commit, update statement contains only changed columns and fails when the note
+     * was changed by a concurrent transaction since it was read.
+     * @param id Note id.
+     * @param version Version of the note read by client, null to skip the check.
+     * @param changes Changes of managed note, tags are changed by {@link Note#replaceHashTags}.
+     * @return Changed note, null when there is no note with id.
+     * @throws StaleObjectStateException when version differs from the current one.
+     */
+    public Note changeNote(Long id, Long version, Consumer<Note> changes) {
+        return this.tx("changeNote", session -> {
+            final Note managed = session.get(Note.class, id);
+            if (managed == null) {
+                return null;
+            }
+            if (version != null && !version.equals(managed.getVersion())) {
+                throw new StaleObjectStateException(Note.class.getName(), id);
+            }
+            final Note before = copyOf(managed);
+            changes.accept(managed);
+            afterCommit(session, () -> listeners.forEach(l -> l.noteUpdated(before, managed)));
+            return managed;
         });
     }
 
     /**
      * The method takes a long id value and looks for it in DB,
      * returns the note which has this id.
+     * Repeated lookups in one unit of work are served from the session cache.
      * @param id String id note to search.
      * @return math note with id
      */
     public Note findNoteById(Long id) {
-        return this.tx(
-                session -> {
-                    final Query query = session.createQuery(
-                        "select n from Note n where n.id=:note_id");
-                    query.setParameter("note_id", id);
-                    return (Note) query.uniqueResult();
+        if (id == null) {
+            return null;
+        }
+        return this.tx("findNoteById", session -> session.get(Note.class, id));
+    }
+
+    /**
+     * The method find notes with passed ids.
+     * @param ids Note ids.
+     * @param view Note.class for full notes or NoteSummary.class for summaries.
+     * @param <T> View type.
+     * @return Founded notes in order of passed ids, missing ids are skipped.
+     */
+    public <T> List<T> findNotesByIds(List<Long> ids, Class<T> view) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return this.tx("findNotesByIds", session -> {
+            final Map<Long, T> byId = new HashMap<>();
+            if (view == Note.class) {
+                for (Note note : session.createQuery("select n from Note n where n.id in :ids", Note.class)
+                        .setParameterList("ids", ids)
+                        .list()) {
+                    byId.put(note.getId(), view.cast(note));
                 }
-        );
+            } else {
+                for (NoteSummary summary : this.summaries(session.createQuery(
+                        "select " + SUMMARY_COLUMNS + " from Note n where n.id in :ids", Object[].class)
+                        .setParameterList("ids", ids)
+                        .list(), session)) {
+                    byId.put(summary.getId(), summaryView(view).cast(summary));
+                }
+            }
+            final List<T> rsl = new ArrayList<>();
+            for (Long id : ids) {
+                if (byId.containsKey(id)) {
+                    rsl.add(byId.get(id));
+                }
+            }
+            return rsl;
+        });
     }
 
     /**
-     * The method takes a long id value and looks for it in DB,
+     * The method find the lowest and the highest note id.
+     * @return Array of min and max id, null when there are no notes.
+     */
+    public long[] findNoteIdRange() {
+        return this.tx("findNoteIdRange", session -> {
+            final Object[] range = session.createQuery(
+                    "select min(n.id), max(n.id) from Note n", Object[].class).uniqueResult();
+            return range[0] == null ? null : new long[] {(Long) range[0], (Long) range[1]};
+        });
+    }
+
+    /**
+     * The method passes notes with id in passed range to consumer as they are read from a cursor.
+     * Notes are built from id, text, topic and dateCreate columns only, tags are not loaded.
+     * @param fromId Lowest id, inclusive.
+     * @param toId Highest id, exclusive.
+     * @param consumer Action applied to each note.
+     */
+    public void forEachNoteText(long fromId, long toId, Consumer<Note> consumer) {
+        this.tx("forEachNoteText", session -> {
+            try (ScrollableResults rows = session.createQuery(
+                    "select n.id, n.text, n.topic, n.dateCreate from Note n"
+                            + " where n.id >= :from and n.id < :to order by n.id", Object[].class)
+                    .setParameter("from", fromId)
+                    .setParameter("to", toId)
+                    .setFetchSize(FETCH_SIZE)
+                    .setReadOnly(true)
+                    .scroll(ScrollMode.FORWARD_ONLY)) {
+                while (rows.next()) {
+                    final Note note = Note.of((String) rows.get(1), (Date) rows.get(3));
+                    note.setId((Long) rows.get(0));
+                    note.setTopic((String) rows.get(2));
+                    consumer.accept(note);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * The method check which of passed notes contain substring in text or topic.
+     * Notes are looked up by primary key, so the condition is checked on passed rows only.
+     * @param ids Note ids.
+     * @param str Substring to find.
+     * @return Ids of notes containing the substring mapped to length of the shortest
+     * of text and topic containing it.
+     */
+    public Map<Long, Integer> findNotesContaining(List<Long> ids, String str) {
+        if (ids.isEmpty()) {
+            return new HashMap<>();
+        }
+        return this.tx("findNotesContaining", session -> {
+            final Map<Long, Integer> rsl = new HashMap<>();
+            for (Object[] row : session.createQuery(
+                    "select n.id,"
+                            + " case when n.topic like :str escape '\\' then length(n.topic) end,"
+                            + " case when n.text like :str escape '\\' then length(n.text) end"
+                            + " from Note n where n.id in :ids"
+                            + " and (n.text like :str escape '\\' or n.topic like :str escape '\\')",
+                    Object[].class)
+                    .setParameterList("ids", ids)
+                    .setParameter("str", containsPattern(str))
+                    .list()) {
+                final Integer topic = (Integer) row[1];
+                final Integer text = (Integer) row[2];
+                rsl.put((Long) row[0], topic == null ? text : text == null ? topic : Math.min(topic, text));
+            }
+            return rsl;
+        });
+    }
+
+    /**
+     * The method takes a long id value and looks for it in tag cache, then in DB,
      * returns the hashTag which has this id.
      * @param id String id note to search.
      * @return Math note with id.
      */
     public HashTag findTagById(Long id) {
-        return this.tx(
-                session -> {
-                    final Query query = session.createQuery(
-                            "select tag from HashTag tag where tag.id=:tag_id");
-                    query.setParameter("tag_id", id);
-                    return (HashTag) query.uniqueResult();
-                }
-        );
+        if (id == null) {
+            return null;
+        }
+        final HashTag cached = tagCache.findById(id);
+        if (cached != null) {
+            return cached;
+        }
+        return this.tx("findTagById", session -> {
+            final HashTag tag = session.get(HashTag.class, id);
+            if (tag != null) {
+                afterCommit(session, () -> tagCache.put(tag));
+            }
+            return tag;
+        });
+    }
+
+    /**
+     * The method replace passed tags with persisted ones using constant number of queries.
+     * Tags are taken from tag cache first. The rest are looked up by id or title
+     * with one query, titles unknown to DB are inserted with one upsert and selected back.
+     * Duplicates are collapsed, tags with neither known id nor title are skipped.
+     * @param tags Tags mapped from request.
+     * @return Persisted tags in order of passed ones.
+     */
+    public List<HashTag> resolveTags(Collection<HashTag> tags) {
+        final List<HashTag> request = new ArrayList<>(tags);
+        final HashTag[] found = new HashTag[request.size()];
+        final Set<Long> ids = new HashSet<>();
+        final Set<String> titles = new LinkedHashSet<>();
+        for (int i = 0; i < found.length; i++) {
+            final HashTag tag = request.get(i);
+            found[i] = tag.getId() != null
+                    ? tagCache.findById(tag.getId()) : tagCache.findByTitle(tag.getTitle());
+            if (found[i] == null && tag.getId() != null) {
+                ids.add(tag.getId());
+            }
+            if (found[i] == null && tag.getTitle() != null) {
+                titles.add(tag.getTitle());
+            }
+        }
+        if (!ids.isEmpty() || !titles.isEmpty()) {
+            this.tx("resolveTags", session -> {
+                this.loadTags(session, request, found, ids, titles);
+                return null;
+            });
+        }
+        final Map<Long, HashTag> rsl = new LinkedHashMap<>();
+        for (HashTag tag : found) {
+            if (tag != null) {
+                rsl.putIfAbsent(tag.getId(), tag);
+            }
+        }
+        return new ArrayList<>(rsl.values());
+    }
+
+    /**
+     * The method fill missed tags from DB, inserting unknown titles.
+     * Loaded tags are put to tag cache after commit.
+     * @param session Opened session.
+     * @param request Requested tags.
+     * @param found Resolved tags by request index, null for missed.
+     * @param ids Ids of missed tags.
+     * @param titles Titles of missed tags.
+     */
+    private void loadTags(Session session, List<HashTag> request, HashTag[] found,
+                          Set<Long> ids, Set<String> titles) {
+        final Map<Long, HashTag> byId = new HashMap<>();
+        final Map<String, HashTag> byTitle = new HashMap<>();
+        final Query<HashTag> query = session.createQuery(
+                "select h from HashTag h where h.id in :ids or h.title in :titles", HashTag.class);
+        query.setParameterList("ids", ids.isEmpty() ? Collections.singleton(-1L) : ids);
+        query.setParameterList("titles", titles.isEmpty() ? Collections.singleton("") : titles);
+        for (HashTag tag : query.list()) {
+            byId.put(tag.getId(), tag);
+            if (tag.getTitle() != null) {
+                byTitle.put(tag.getTitle(), tag);
+            }
+        }
+        final List<String> missing = new ArrayList<>();
+        for (int i = 0; i < found.length; i++) {
+            final HashTag tag = request.get(i);
+            if (found[i] == null && !byId.containsKey(tag.getId()) && tag.getTitle() != null
+                    && !byTitle.containsKey(tag.getTitle()) && !missing.contains(tag.getTitle())) {
+                missing.add(tag.getTitle());
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (HashTag tag : this.upsertTags(session, missing)) {
+                byTitle.put(tag.getTitle(), tag);
+            }
+        }
+        for (int i = 0; i < found.length; i++) {
+            final HashTag tag = request.get(i);
+            if (found[i] == null) {
+                found[i] = byId.containsKey(tag.getId())
+                        ? byId.get(tag.getId()) : byTitle.get(tag.getTitle());
+            }
+        }
+        afterCommit(session, () -> {
+            byId.values().forEach(tagCache::put);
+            byTitle.values().forEach(tagCache::put);
+        });
+    }
+
+    /**
+     * The method insert tags with passed titles by one statement, titles that already
+     * exist (also inserted by concurrent transaction) are left as is.
+     * @param session Opened session.
+     * @param titles Titles to insert.
+     * @return Persisted tags with passed titles.
+     */
+    private List<HashTag> upsertTags(Session session, List<String> titles) {
+        final StringBuilder sql = new StringBuilder("insert into hashtag (title) values ");
+        for (int i = 0; i < titles.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("(:t").append(i).append(")");
+        }
+        sql.append(" on conflict (title) do nothing");
+        final NativeQuery<?> insert = session.createNativeQuery(sql.toString())
+                .addSynchronizedEntityClass(HashTag.class);
+        for (int i = 0; i < titles.size(); i++) {
+            insert.setParameter("t" + i, titles.get(i));
+        }
+        LOG.debug("Tags inserted: {}", insert.executeUpdate());
+        final List<HashTag> rsl = session.createQuery(
+                "select h from HashTag h where h.title in :titles", HashTag.class)
+                .setParameterList("titles", titles)
+                .list();
+        afterCommit(session, () -> rsl.forEach(tag -> listeners.forEach(l -> l.tagCreated(tag))));
+        return rsl;
     }
 
     /**
      * The method takes an note id to delete.
      * @param id Id item.
-     * @return if item with passed id delete and not find in DB return true,
-     * otherwise false.
+     * @return Deleted note, null if there is no note with passed id.
      */
     public Note deleteNote(Long id) {
-        Note note = new Note();
-        note.setId(id);
-        return this.tx(session -> {
-            session.delete(note);
+        return this.tx("deleteNote", session -> {
+            final Note note = session.get(Note.class, id);
+            if (note != null) {
+                session.delete(note);
+                afterCommit(session, () -> listeners.forEach(l -> l.noteDeleted(note)));
+            }
             return note;
         });
     }
 
+    /**
+     * The method delete notes matching filter with their tag links by one statement.
+     * At most max + 1 notes are matched, when more than max notes are deleted the
+     * transaction is rolled back, so a too broad filter deletes nothing.
+     * Listeners get deleted notes with ids of their tags.
+     * @param filter Condition on notes, must not match every note.
+     * @param max Maximal number of deleted notes, positive.
+     * @return Number of deleted notes.
+     * @throws InvalidRequestException when filter is empty or matches more than max notes.
+     */
+    public int deleteNotes(NoteFilter filter, int max) {
+        if (filter.isNone()) {
+            throw new InvalidRequestException("Filter matches every note");
+        }
+        if (max < 1) {
+            throw new InvalidRequestException("Maximal number of deleted notes must be positive: " + max);
+        }
+        return this.tx("deleteNotes", session -> {
+            final Map<String, Object> params = new LinkedHashMap<>(filter.params());
+            params.put("max", (long) max + 1);
+            @SuppressWarnings("unchecked")
+            final NativeQuery<Object[]> query = session.createNativeQuery(
+                    "with matched as (select n.id from note n where " + filter.sqlCondition("n")
+                            + " limit :max),"
+                            + " links as (delete from note_hashtag nh using matched m"
+                            + " where nh.note_id = m.id returning nh.note_id, nh.hashtag_id),"
+                            + " deleted as (delete from note n using matched m where n.id = m.id returning n.id)"
+                            + " select d.id as note_id, l.hashtag_id from deleted d"
+                            + " left join links l on l.note_id = d.id")
+                    .addScalar("note_id", StandardBasicTypes.LONG)
+                    .addScalar("hashtag_id", StandardBasicTypes.LONG);
+            final List<Object[]> rows = this.bulk(session, query, params);
+            final Map<Long, Note> deleted = new LinkedHashMap<>();
+            for (Object[] row : rows) {
+                final Note note = deleted.computeIfAbsent((Long) row[0], id -> {
+                    final Note rsl = new Note();
+                    rsl.setId(id);
+                    return rsl;
+                });
+                if (row[1] != null) {
+                    note.addHashTag(HashTag.of((Long) row[1], null));
+                }
+            }
+            if (deleted.size() > max) {
+                throw new InvalidRequestException("Filter matches more than " + max + " notes");
+            }
+            afterCommit(session, () -> deleted.values().forEach(
+                    note -> listeners.forEach(l -> l.noteDeleted(note))));
+            return deleted.size();
+        });
+    }
+
+    /**
+     * The method add tag to notes matching filter by one statement,
+     * notes that already have the tag are skipped. Version of changed notes is incremented.
+     * @param filter Condition on notes.
+     * @param tagId Id of persisted tag.
+     * @return Number of changed notes.
+     */
+    public int tagNotes(NoteFilter filter, Long tagId) {
+        return this.retag(filter, tagId, true,
+                "links as (insert into note_hashtag (note_id, hashtag_id) select m.id, :tag from matched m"
+                        + " on conflict do nothing returning note_id)");
+    }
+
+    /**
+     * The method remove tag from notes matching filter by one statement.
+     * Version of changed notes is incremented.
+     * @param filter Condition on notes.
+     * @param tagId Id of persisted tag.
+     * @return Number of changed notes.
+     */
+    public int untagNotes(NoteFilter filter, Long tagId) {
+        return this.retag(filter, tagId, false,
+                "links as (delete from note_hashtag nh using matched m"
+                        + " where nh.note_id = m.id and nh.hashtag_id = :tag returning nh.note_id)");
+    }
+
     /**
      * The method find notes greater than passed date.
      * @param date Date to compare.
+     * @param keyset Page position.
+     * @param view Note.class for full notes or NoteSummary.class for summaries.
+     * @param <T> View type.
      * @return Founded notes.
      */
-    public List<Note> findNotesGreaterDate(Date date) {
-        return this.tx(
-                session -> {
-                    final Query query = session.createQuery(
-                            "select distinct n from Note n where n.dateCreate>:date", Note.class);
-                    query.setParameter("date", date);
-                    return (List<Note>) query.list();
-                }
+    public <T> Page<T> findNotesGreaterDate(Date date, Keyset keyset, Class<T> view) {
+        return this.tx("findNotesGreaterDate",
+                session -> this.page(session, "n.dateCreate>:date",
+                        Collections.singletonMap("date", date), keyset, view)
         );
     }
 
     /**
      * The method find notes less than passed date.
      * @param date Date to compare.
+     * @param keyset Page position.
+     * @param view Note.class for full notes or NoteSummary.class for summaries.
+     * @param <T> View type.
      * @return Founded notes.
      */
-    public List<Note> findNotesLessDate(Date date) {
-        return this.tx(
-                session -> {
-                    final Query query = session.createQuery(
-                            "select distinct n from Note n where n.dateCreate<:date", Note.class);
-                    query.setParameter("date", date);
-                    return (List<Note>) query.list();
-                }
+    public <T> Page<T> findNotesLessDate(Date date, Keyset keyset, Class<T> view) {
+        return this.tx("findNotesLessDate",
+                session -> this.page(session, "n.dateCreate<:date",
+                        Collections.singletonMap("date", date), keyset, view)
         );
     }
 
     /**
      * The method find notes equals than passed date.
      * @param date Date to compare.
+     * @param keyset Page position.
+     * @param view Note.class for full notes or NoteSummary.class for summaries.
+     * @param <T> View type.
      * @return Founded notes.
      */
-    public List<Note> findNotesEqualDate(Date date) {
-        return this.tx(
-                session -> {
-                    final Query query = session.createQuery(
-                            "select distinct n from Note n where n.dateCreate=:date", Note.class);
-                    query.setParameter("date", date);
-                    return (List<Note>) query.list();
-                }
+    public <T> Page<T> findNotesEqualDate(Date date, Keyset keyset, Class<T> view) {
+        return this.tx("findNotesEqualDate",
+                session -> this.page(session, "n.dateCreate=:date",
+                        Collections.singletonMap("date", date), keyset, view)
         );
     }
 
     /**
      * The method find notes that contain passed tag id.
      * @param id Tag id to find.
+     * @param keyset Page position.
+     * @param view Note.class for full notes or NoteSummary.class for summaries.
+     * @param <T> View type.
      * @return Founded notes.
      */
-    public List<Note> findNotesByHashTagId(Long id) {
-        return this.tx(
-                session -> {
-                    final Query query = session.createQuery(
-                            "select distinct n from Note n inner join n.hashTag h where h.id=:tag_id", Note.class);
-                    query.setParameter("tag_id", id);
-                    return (List<Note>) query.list();
-                }
+    public <T> Page<T> findNotesByHashTagId(Long id, Keyset keyset, Class<T> view) {
+        return this.tx("findNotesByHashTagId",
+                session -> this.page(session,
+                        "exists (select h.id from n.hashTag h where h.id=:tag_id)",
+                        Collections.singletonMap("tag_id", id), keyset, view)
         );
     }
 
     /**
      * The method get all notes that contains sub passed substring in text or title fields.
+     * The condition is served by trigram indexes of text and topic columns.
      * @param str Substring to find.
+     * @param keyset Page position.
+     * @param view Note.class for full notes or NoteSummary.class for summaries.
+     * @param <T> View type.
      * @return Founded notes.
      */
-    public List<Note> findNotesWithTextContain(String str) {
-        return this.tx(
-                session -> {
-                    final Query query = session.createQuery(
-                            "select distinct n from Note n where n.text like ?1 or n.topic like ?1", Note.class);
-                    query.setParameter(1, "%"+str+"%");
-                    return (List<Note>) query.list();
-                }
+    public <T> Page<T> findNotesWithTextContain(String str, Keyset keyset, Class<T> view) {
+        return this.tx("findNotesWithTextContain",
+                session -> this.page(session,
+                        "(n.text like :str escape '\\' or n.topic like :str escape '\\')",
+                        Collections.singletonMap("str", containsPattern(str)), keyset, view)
+        );
+    }
+
+    /**
+     * The method find one page of notes matching all parts of passed filter by one query.
+     * @param filter Combined condition.
+     * @param keyset Page position.
+     * @param view Note.class for full notes or NoteSummary.class for summaries.
+     * @param <T> View type.
+     * @return Founded notes.
+     */
+    public <T> Page<T> findNotes(NoteFilter filter, Keyset keyset, Class<T> view) {
+        return this.tx("findNotes",
+                session -> this.page(session, filter.condition("n"), filter.params(), keyset, view)
         );
     }
 
+    /**
+     * The method get the most relevant notes that contains passed substring in text or title fields.
+     * Notes are ranked by trigram similarity of the substring to topic or text.
+     * @param str Substring to find.
+     * @param limit Maximum number of notes.
+     * @param view Note.class for full notes or NoteSummary.class for summaries.
+     * @param <T> View type.
+     * @return Founded notes, most relevant first.
+     */
+    public <T> List<T> findNotesWithTextContainByRelevance(String str, int limit, Class<T> view) {
+        final String from = " from note n"
+                + " where n.text like :pattern escape '\\' or n.topic like :pattern escape '\\'"
+                + " order by greatest(similarity(coalesce(n.topic, ''), :str),"
+                + " similarity(coalesce(n.text, ''), :str)) desc, n.id";
+        return this.tx("findNotesWithTextContainByRelevance", session -> {
+            if (view == Note.class) {
+                return session.createNativeQuery("select n.*" + from, view)
+                        .setParameter("pattern", containsPattern(str))
+                        .setParameter("str", str)
+                        .setMaxResults(limit)
+                        .list();
+            }
+            @SuppressWarnings("unchecked")
+            final List<Object[]> rows = session.createNativeQuery(
+                    "select n.id, n.topic, n.datecreate, substring(n.text, 1, " + SNIPPET_LENGTH + ") as snippet"
+                            + from)
+                    .addScalar("id", StandardBasicTypes.LONG)
+                    .addScalar("topic", StandardBasicTypes.STRING)
+                    .addScalar("datecreate", StandardBasicTypes.TIMESTAMP)
+                    .addScalar("snippet", StandardBasicTypes.STRING)
+                    .setParameter("pattern", containsPattern(str))
+                    .setParameter("str", str)
+                    .setMaxResults(limit)
+                    .list();
+            return this.summaries(rows, session).stream()
+                    .map(summaryView(view)::cast)
+                    .collect(Collectors.toList());
+        });
+    }
+
+    /**
+     * The method change links of notes matching filter to one tag and increment version
+     * of changed notes.
+     * @param filter Condition on notes.
+     * @param tagId Id of persisted tag.
+     * @param added True when links are inserted, false when deleted.
+     * @param change SQL of changed links named links, returning note_id column.
+     * @return Number of changed notes.
+     */
+    private int retag(NoteFilter filter, Long tagId, boolean added, String change) {
+        return this.tx(added ? "tagNotes" : "untagNotes", session -> {
+            if (tagId == null || session.get(HashTag.class, tagId) == null) {
+                throw new InvalidRequestException("Unknown tag: " + tagId);
+            }
+            final Map<String, Object> params = new LinkedHashMap<>(filter.params());
+            params.put("tag", tagId);
+            final String where = filter.isNone() ? "" : " where " + filter.sqlCondition("n");
+            @SuppressWarnings("unchecked")
+            final NativeQuery<Long> query = session.createNativeQuery(
+                    "with matched as (select n.id from note n" + where + "), " + change + ","
+                            + " changed as (update note n set version = n.version + 1 from links l"
+                            + " where n.id = l.note_id returning n.id)"
+                            + " select c.id from changed c")
+                    .addScalar("id", StandardBasicTypes.LONG);
+            final List<Long> ids = this.bulk(session, query, params);
+            afterCommit(session, () -> listeners.forEach(l -> l.notesRetagged(tagId, ids, added)));
+            return ids.size();
+        });
+    }
+
+    /**
+     * The method run data modifying SQL statement of notes that returns rows.
+     * Cached notes, tag lists and query results are evicted after commit, as Hibernate
+     * does not track changes of statements run as queries.
+     * @param session Opened session.
+     * @param query Statement with declared result columns.
+     * @param params Statement parameters.
+     * @param <R> Row type.
+     * @return Returned rows.
+     */
+    private <R> List<R> bulk(Session session, NativeQuery<R> query, Map<String, Object> params) {
+        params.forEach(query::setParameter);
+        final List<R> rows = query.list();
+        afterCommit(session, () -> {
+            sf.getCache().evictEntityData(Note.class);
+            sf.getCache().evictCollectionData(Note.class.getName() + ".hashTag");
+            sf.getCache().evictQueryRegions();
+        });
+        return rows;
+    }
+
+    /**
+     * The method copy fields and tag list of passed note.
+     * @param note Note to copy.
+     * @return Detached copy.
+     */
+    private static Note copyOf(Note note) {
+        final Note copy = Note.of(note.getText(), note.getDateCreate());
+        copy.setId(note.getId());
+        copy.setTopic(note.getTopic());
+        copy.setHashTag(note.getHashTag());
+        copy.setVersion(note.getVersion());
+        return copy;
+    }
+
+    /**
+     * The method build like pattern matching passed substring literally.
+     * @param str Substring.
+     * @return Pattern.
+     */
+    static String containsPattern(String str) {
+        return "%" + str.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    /**
+     * The method select one page of notes matching condition, ordered by keyset.
+     * One extra row is fetched to find out whether the next page exists.
+     * Summaries select only their columns and the beginning of text.
+     * @param session Opened session.
+     * @param where HQL condition on note alias n, may be empty.
+     * @param params Condition parameters.
+     * @param keyset Page position.
+     * @param view Note.class for full notes or NoteSummary.class for summaries.
+     * @param <T> View type.
+     * @return Page of notes.
+     */
+    private <T> Page<T> page(Session session, String where, Map<String, Object> params,
+                             Keyset keyset, Class<T> view) {
+        final boolean full = view == Note.class;
+        final Class<?> type = full ? Note.class : Object[].class;
+        final Query<?> query = session.createQuery(
+                "select " + (full ? "n" : SUMMARY_COLUMNS) + " from Note n where "
+                        + (where.isEmpty() ? "" : where + " and ")
+                        + keyset.condition("n") + keyset.orderBy("n"), type);
+        params.forEach(query::setParameter);
+        keyset.bind(query);
+        final List<?> rows = query.setMaxResults(keyset.getLimit() + 1).setCacheable(true).list();
+        final List<T> items = new ArrayList<>();
+        Keyset next = null;
+        if (full) {
+            for (Object note : rows.subList(0, Math.min(rows.size(), keyset.getLimit()))) {
+                items.add(view.cast(note));
+            }
+            if (rows.size() > keyset.getLimit()) {
+                next = keyset.after((Note) rows.get(keyset.getLimit() - 1));
+            }
+        } else {
+            @SuppressWarnings("unchecked")
+            final List<Object[]> page = (List<Object[]>) rows.subList(0, Math.min(rows.size(), keyset.getLimit()));
+            for (NoteSummary summary : this.summaries(page, session)) {
+                items.add(summaryView(view).cast(summary));
+            }
+            if (rows.size() > keyset.getLimit()) {
+                final NoteSummary last = (NoteSummary) items.get(items.size() - 1);
+                next = keyset.after(last.getDateCreate(), last.getId());
+            }
+        }
+        return new Page<>(items, next);
+    }
+
+    /**
+     * The method build summaries from selected SUMMARY_COLUMNS rows and load ids
+     * of their tags by one query on the relation table.
+     * @param rows Rows of id, topic, date and snippet.
+     * @param session Opened session.
+     * @return Summaries in order of rows.
+     */
+    private List<NoteSummary> summaries(List<Object[]> rows, Session session) {
+        final Map<Long, NoteSummary> byId = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            final NoteSummary summary = NoteSummary.of(
+                    (Long) row[0], (String) row[1], (Date) row[2], (String) row[3]);
+            byId.put(summary.getId(), summary);
+        }
+        if (!byId.isEmpty()) {
+            @SuppressWarnings("unchecked")
+            final List<Object[]> links = session.createNativeQuery(
+                    "select note_id, hashtag_id from note_hashtag"
+                            + " where note_id in (:ids) order by note_id, hashtag_id")
+                    .addScalar("note_id", StandardBasicTypes.LONG)
+                    .addScalar("hashtag_id", StandardBasicTypes.LONG)
+                    .setParameterList("ids", byId.keySet())
+                    .list();
+            for (Object[] link : links) {
+                byId.get((Long) link[0]).getTagIds().add((Long) link[1]);
+            }
+        }
+        return new ArrayList<>(byId.values());
+    }
+
+    /**
+     * The method check that passed view is supported summary view.
+     * @param view Requested view.
+     * @param <T> View type.
+     * @return Passed view.
+     */
+    private static <T> Class<T> summaryView(Class<T> view) {
+        if (view != NoteSummary.class) {
+            throw new IllegalArgumentException("Unknown view: " + view.getName());
+        }
+        return view;
+    }
+
 }
\ No newline at end of file
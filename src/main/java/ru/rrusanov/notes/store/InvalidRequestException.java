@@ -0,0 +1,20 @@
+package ru.rrusanov.notes.store;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe rejected parameters of a store call passed by client: malformed cursor,
+ * page limit or sort order, empty date range, unknown tag or filter out of bounds.
+ * Controllers answer it with bad request status, other illegal arguments are errors of the application.
+ */
+public class InvalidRequestException extends IllegalArgumentException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+
+    public InvalidRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,220 @@
+package ru.rrusanov.notes.store;
+
+import org.hibernate.query.Query;
+import ru.rrusanov.notes.domain.Note;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe position in notes ordered by (dateCreate, id).
+ * The next page starts right after the stored key, so a deep page costs
+ * the same as the first one. Notes without dateCreate are not reachable by keyset.
+ */
+public final class Keyset {
+    /**
+     * Page size used when client does not pass one.
+     */
+    public static final int DEFAULT_LIMIT = 100;
+    /**
+     * Upper bound of page size.
+     */
+    public static final int MAX_LIMIT = 1000;
+    /**
+     * Date of the last note on previous page, null for the first page.
+     */
+    private final Date date;
+    /**
+     * Id of the last note on previous page, null for the first page.
+     */
+    private final Long id;
+    private final int limit;
+    private final boolean descending;
+
+    private Keyset(Date date, Long id, int limit, boolean descending) {
+        this.date = date;
+        this.id = id;
+        this.limit = limit(limit);
+        this.descending = descending;
+    }
+
+    /**
+     * The method check requested page size and cap it by MAX_LIMIT.
+     * @param limit Requested page size.
+     * @return Page size.
+     */
+    public static int limit(int limit) {
+        if (limit < 1) {
+            throw new InvalidRequestException("Page limit must be positive: " + limit);
+        }
+        return Math.min(limit, MAX_LIMIT);
+    }
+
+    /**
+     * The method create position of the first page.
+     * @param limit Page size, capped by MAX_LIMIT.
+     * @param order Sort order "asc" or "desc".
+     * @return Keyset.
+     */
+    public static Keyset first(int limit, String order) {
+        return new Keyset(null, null, limit, parseOrder(order));
+    }
+
+    /**
+     * The method restore position from cursor returned with previous page.
+     * Sort order is taken from cursor.
+     * @param cursor Opaque cursor.
+     * @param limit Page size, capped by MAX_LIMIT.
+     * @return Keyset.
+     */
+    public static Keyset fromCursor(String cursor, int limit) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Malformed cursor: " + cursor, e);
+        }
+        if (parts.length != 3) {
+            throw new InvalidRequestException("Malformed cursor: " + cursor);
+        }
+        try {
+            return new Keyset(
+                    new Date(Long.parseLong(parts[1])), Long.parseLong(parts[2]), limit, parseOrder(parts[0])
+            );
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException("Malformed cursor: " + cursor, e);
+        }
+    }
+
+    /**
+     * The method create position right after passed note with the same limit and order.
+     * @param last Last note of current page.
+     * @return Keyset of next page.
+     */
+    public Keyset after(Note last) {
+        return after(last.getDateCreate(), last.getId());
+    }
+
+    /**
+     * The method create position right after passed key with the same limit and order.
+     * @param date Date of the last item.
+     * @param id Id of the last item.
+     * @return Keyset of next page.
+     */
+    Keyset after(Date date, Long id) {
+        return new Keyset(date, id, limit, descending);
+    }
+
+    /**
+     * The method check that passed key lies after stored one in keyset order.
+     * @param date Item date.
+     * @param id Item id.
+     * @return True if item belongs to the page.
+     */
+    boolean follows(Date date, long id) {
+        if (this.id == null) {
+            return true;
+        }
+        int cmp = date.compareTo(this.date);
+        if (cmp == 0) {
+            cmp = Long.compare(id, this.id);
+        }
+        return descending ? cmp < 0 : cmp > 0;
+    }
+
+    /**
+     * The method encode position to opaque string.
+     * @return Cursor.
+     */
+    public String toCursor() {
+        String raw = (descending ? "desc" : "asc") + ":" + date.getTime() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The method return HQL condition selecting notes after stored key.
+     * Notes without dateCreate have no position in the order and are never selected.
+     * Parameters are bound by {@link #bind}.
+     * The redundant inclusive bound lets DB start an index range scan at the key.
+     * @param alias Note alias in query.
+     * @return HQL fragment.
+     */
+    String condition(String alias) {
+        if (id == null) {
+            return alias + ".dateCreate is not null";
+        }
+        String sign = descending ? "<" : ">";
+        return alias + ".dateCreate " + sign + "= :k_date"
+                + " and (" + alias + ".dateCreate " + sign + " :k_date or ("
+                + alias + ".dateCreate = :k_date and " + alias + ".id " + sign + " :k_id))";
+    }
+
+    /**
+     * The method return HQL order by clause matching the keyset.
+     * @param alias Note alias in query.
+     * @return HQL fragment.
+     */
+    String orderBy(String alias) {
+        String direction = descending ? " desc" : " asc";
+        return " order by " + alias + ".dateCreate" + direction + ", " + alias + ".id" + direction;
+    }
+
+    /**
+     * The method bind parameters used by {@link #condition}.
+     * @param query Query to bind.
+     */
+    void bind(Query<?> query) {
+        if (id != null) {
+            query.setParameter("k_date", date);
+            query.setParameter("k_id", id);
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    private static boolean parseOrder(String order) {
+        if ("asc".equalsIgnoreCase(order)) {
+            return false;
+        }
+        if ("desc".equalsIgnoreCase(order)) {
+            return true;
+        }
+        throw new InvalidRequestException("Unknown sort order: " + order);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Keyset keyset = (Keyset) o;
+        return limit == keyset.limit && descending == keyset.descending
+                && Objects.equals(date, keyset.date) && Objects.equals(id, keyset.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(date, id, limit, descending);
+    }
+
+    @Override
+    public String toString() {
+        return "Keyset{" +
+                "date=" + date +
+                ", id=" + id +
+                ", limit=" + limit +
+                ", descending=" + descending +
+                '}';
+    }
+}
@@ -0,0 +1,254 @@
+package ru.rrusanov.notes.store;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe combined condition on notes: creation date range, tags that must
+ * all be present, tags of which any must be present and substring of text or topic.
+ * Condition is rendered to HQL with named parameters. Its text depends only on which
+ * parts are set, never on values or number of tags, so a few query shapes cover
+ * every search and their plans are taken from Hibernate query plan cache.
+ */
+public final class NoteFilter {
+    /**
+     * Upper bound of tags in one list.
+     */
+    public static final int MAX_TAGS = 100;
+    private static final NoteFilter NONE = new NoteFilter(
+            null, null, Collections.emptySet(), Collections.emptySet(), null);
+    /**
+     * Minimal date of creation inclusive, null for no bound.
+     */
+    private final Date from;
+    /**
+     * Maximal date of creation exclusive, null for no bound.
+     */
+    private final Date to;
+    private final Set<Long> allTags;
+    private final Set<Long> anyTags;
+    private final String text;
+
+    private NoteFilter(Date from, Date to, Set<Long> allTags, Set<Long> anyTags, String text) {
+        if (from != null && to != null && from.after(to)) {
+            throw new InvalidRequestException("Date range is empty: " + from + " after " + to);
+        }
+        this.from = from;
+        this.to = to;
+        this.allTags = allTags;
+        this.anyTags = anyTags;
+        this.text = text;
+    }
+
+    /**
+     * @return Filter matching every note.
+     */
+    public static NoteFilter none() {
+        return NONE;
+    }
+
+    /**
+     * @param from Minimal date of creation inclusive, null for no bound.
+     * @return Copy with lower date bound.
+     */
+    public NoteFilter from(Date from) {
+        return new NoteFilter(from, to, allTags, anyTags, text);
+    }
+
+    /**
+     * @param to Maximal date of creation exclusive, null for no bound.
+     * @return Copy with upper date bound.
+     */
+    public NoteFilter to(Date to) {
+        return new NoteFilter(from, to, allTags, anyTags, text);
+    }
+
+    /**
+     * @param ids Ids of tags every matching note has, null or empty for no condition.
+     * @return Copy with condition on all tags.
+     */
+    public NoteFilter withAllTags(Collection<Long> ids) {
+        return new NoteFilter(from, to, tags(ids), anyTags, text);
+    }
+
+    /**
+     * @param ids Ids of tags of which matching note has at least one, null or empty for no condition.
+     * @return Copy with condition on any tag.
+     */
+    public NoteFilter withAnyTags(Collection<Long> ids) {
+        return new NoteFilter(from, to, allTags, tags(ids), text);
+    }
+
+    /**
+     * @param text Substring of text or topic, null or empty for no condition.
+     * @return Copy with condition on text.
+     */
+    public NoteFilter containing(String text) {
+        return new NoteFilter(from, to, allTags, anyTags, text == null || text.isEmpty() ? null : text);
+    }
+
+    /**
+     * The method render condition on passed note alias, empty when nothing is set.
+     * Substring is matched by the trigram indexes of text and topic.
+     * @param alias Note alias.
+     * @return HQL condition.
+     */
+    String condition(String alias) {
+        final StringBuilder rsl = new StringBuilder();
+        if (from != null) {
+            and(rsl).append(alias).append(".dateCreate >= :f_from");
+        }
+        if (to != null) {
+            and(rsl).append(alias).append(".dateCreate < :f_to");
+        }
+        if (!allTags.isEmpty()) {
+            and(rsl).append("(select count(h.id) from ").append(alias)
+                    .append(".hashTag h where h.id in :f_all) = :f_all_count");
+        }
+        if (!anyTags.isEmpty()) {
+            and(rsl).append("exists (select h.id from ").append(alias)
+                    .append(".hashTag h where h.id in :f_any)");
+        }
+        if (text != null) {
+            and(rsl).append("(").append(alias).append(".text like :f_text escape '\\' or ")
+                    .append(alias).append(".topic like :f_text escape '\\')");
+        }
+        return rsl.toString();
+    }
+
+    /**
+     * The method render the same condition in SQL on passed alias of note table,
+     * for set-based statements Hibernate does not support, e.g. delete using.
+     * @param alias Note table alias.
+     * @return SQL condition.
+     */
+    String sqlCondition(String alias) {
+        final StringBuilder rsl = new StringBuilder();
+        if (from != null) {
+            and(rsl).append(alias).append(".datecreate >= :f_from");
+        }
+        if (to != null) {
+            and(rsl).append(alias).append(".datecreate < :f_to");
+        }
+        if (!allTags.isEmpty()) {
+            and(rsl).append("(select count(*) from note_hashtag h where h.note_id = ").append(alias)
+                    .append(".id and h.hashtag_id in (:f_all)) = :f_all_count");
+        }
+        if (!anyTags.isEmpty()) {
+            and(rsl).append("exists (select 1 from note_hashtag h where h.note_id = ").append(alias)
+                    .append(".id and h.hashtag_id in (:f_any))");
+        }
+        if (text != null) {
+            and(rsl).append("(").append(alias).append(".text like :f_text escape '\\' or ")
+                    .append(alias).append(".topic like :f_text escape '\\')");
+        }
+        return rsl.toString();
+    }
+
+    /**
+     * @return True when filter matches every note.
+     */
+    public boolean isNone() {
+        return this.equals(NONE);
+    }
+
+    /**
+     * @return Values of parameters used by {@link #condition} and {@link #sqlCondition}.
+     */
+    Map<String, Object> params() {
+        final Map<String, Object> rsl = new LinkedHashMap<>();
+        if (from != null) {
+            rsl.put("f_from", from);
+        }
+        if (to != null) {
+            rsl.put("f_to", to);
+        }
+        if (!allTags.isEmpty()) {
+            rsl.put("f_all", allTags);
+            rsl.put("f_all_count", (long) allTags.size());
+        }
+        if (!anyTags.isEmpty()) {
+            rsl.put("f_any", anyTags);
+        }
+        if (text != null) {
+            rsl.put("f_text", Hibernate.containsPattern(text));
+        }
+        return rsl;
+    }
+
+    public Date getFrom() {
+        return from;
+    }
+
+    public Date getTo() {
+        return to;
+    }
+
+    public Set<Long> getAllTags() {
+        return allTags;
+    }
+
+    public Set<Long> getAnyTags() {
+        return anyTags;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    private static StringBuilder and(StringBuilder condition) {
+        return condition.length() == 0 ? condition : condition.append(" and ");
+    }
+
+    private static Set<Long> tags(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptySet();
+        }
+        final Set<Long> rsl = new LinkedHashSet<>();
+        for (Long id : ids) {
+            if (id == null) {
+                throw new InvalidRequestException("Tag id is missing");
+            }
+            rsl.add(id);
+        }
+        if (rsl.size() > MAX_TAGS) {
+            throw new InvalidRequestException("Too many tags: " + rsl.size() + ", at most " + MAX_TAGS);
+        }
+        return Collections.unmodifiableSet(rsl);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        NoteFilter that = (NoteFilter) o;
+        return Objects.equals(from, that.from) && Objects.equals(to, that.to)
+                && allTags.equals(that.allTags) && anyTags.equals(that.anyTags)
+                && Objects.equals(text, that.text);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(from, to, allTags, anyTags, text);
+    }
+
+    @Override
+    public String toString() {
+        return "NoteFilter{" +
+                "from=" + from +
+                ", to=" + to +
+                ", allTags=" + allTags +
+                ", anyTags=" + anyTags +
+                ", text='" + text + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,53 @@
+package ru.rrusanov.notes.store;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe one page of query result and position of the next page.
+ * @param <T> Item type.
+ */
+public class Page<T> {
+    private final List<T> items;
+    /**
+     * Position of the next page, null when current page is the last.
+     */
+    private final Keyset next;
+
+    public Page(List<T> items, Keyset next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public Keyset getNext() {
+        return next;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Page<?> page = (Page<?>) o;
+        return items.equals(page.items) && Objects.equals(next, page.next);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(items, next);
+    }
+
+    @Override
+    public String toString() {
+        return "Page{" +
+                "items=" + items +
+                ", next=" + next +
+                '}';
+    }
+}
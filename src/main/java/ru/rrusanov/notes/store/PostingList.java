@@ -0,0 +1,125 @@
+package ru.rrusanov.notes.store;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe sorted set of note ids stored in a primitive array.
+ * Ids mostly grow, so adding usually appends to the end. Not thread safe.
+ */
+class PostingList {
+    private long[] ids = new long[4];
+    private int size;
+
+    /**
+     * The method add id keeping the order, duplicates are ignored.
+     * @param id Note id.
+     */
+    void add(long id) {
+        if (size == 0 || ids[size - 1] < id) {
+            ensureCapacity();
+            ids[size++] = id;
+            return;
+        }
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos < 0) {
+            pos = -pos - 1;
+            ensureCapacity();
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size++;
+        }
+    }
+
+    /**
+     * The method remove id if present.
+     * @param id Note id.
+     */
+    void remove(long id) {
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos >= 0) {
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+        }
+    }
+
+    /**
+     * The method remove all ids not accepted by passed predicate.
+     * @param keep Condition of kept ids.
+     * @return Number of ids left.
+     */
+    int retain(LongPredicate keep) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (keep.test(ids[i])) {
+                ids[kept++] = ids[i];
+            }
+        }
+        size = kept;
+        return size;
+    }
+
+    /**
+     * The method append all ids of passed list. Ids are expected to be greater than ids
+     * of this list, otherwise they are merged one by one.
+     * @param other List with ids, usually greater ones.
+     */
+    void append(PostingList other) {
+        if (size > 0 && other.size > 0 && other.ids[0] <= ids[size - 1]) {
+            for (int i = 0; i < other.size; i++) {
+                this.add(other.ids[i]);
+            }
+            return;
+        }
+        if (size + other.size > ids.length) {
+            ids = Arrays.copyOf(ids, size + other.size);
+        }
+        System.arraycopy(other.ids, 0, ids, size, other.size);
+        size += other.size;
+    }
+
+    boolean contains(long id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * The method intersect passed sorted ids with this list.
+     * @param candidates Sorted ids.
+     * @param count Number of used elements of candidates.
+     * @return Number of ids left at the beginning of candidates.
+     */
+    int retainIn(long[] candidates, int count) {
+        int kept = 0;
+        int from = 0;
+        for (int i = 0; i < count && from < size; i++) {
+            int pos = Arrays.binarySearch(ids, from, size, candidates[i]);
+            if (pos >= 0) {
+                candidates[kept++] = candidates[i];
+                from = pos + 1;
+            } else {
+                from = -pos - 1;
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * @return Copy of ids.
+     */
+    long[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    private void ensureCapacity() {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+        }
+    }
+}
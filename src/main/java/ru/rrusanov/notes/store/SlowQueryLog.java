@@ -0,0 +1,169 @@
+package ru.rrusanov.notes.store;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.rrusanov.notes.domain.jsonmapper.SlowQuery;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe listener of statements executed through the proxied data source of the store.
+ * Statements running longer than the threshold are kept with bind parameters and the store
+ * method that executed them in a ring buffer of fixed capacity: writers take the next slot
+ * by atomic increment and overwrite the oldest entry, nothing is locked on the request thread.
+ * Every statement may be logged too, a sampled share of them, switched at runtime.
+ */
+public class SlowQueryLog implements QueryExecutionListener, MeterBinder {
+    /**
+     * The instance with logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(SlowQueryLog.class.getName());
+    /**
+     * Maximal length of bind parameter value kept, longer texts are cut.
+     */
+    private static final int VALUE_LENGTH = 200;
+    /**
+     * Minimal execution time of captured statement in milliseconds.
+     */
+    private final long threshold;
+    /**
+     * Ring buffer of captured statements, entry number n is kept in slot n % capacity.
+     */
+    private final AtomicReferenceArray<SlowQuery> slots;
+    /**
+     * Number of statements captured since start, the next entry number.
+     */
+    private final AtomicLong captured = new AtomicLong();
+    /**
+     * Share of logged statements, 0 when logging is off.
+     */
+    private volatile double sample;
+
+    /**
+     * @param threshold Minimal execution time of captured statement.
+     * @param capacity Number of kept statements.
+     * @param sample Share of logged statements between 0 and 1.
+     */
+    public SlowQueryLog(Duration threshold, int capacity, double sample) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.threshold = threshold.toMillis();
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.setSample(sample);
+    }
+
+    /**
+     * @return Share of logged statements, 0 when logging is off.
+     */
+    public double getSample() {
+        return sample;
+    }
+
+    /**
+     * The method switch logging of every statement.
+     * @param sample Share of logged statements between 0 and 1, 0 to turn logging off.
+     */
+    public void setSample(double sample) {
+        if (!(sample >= 0 && sample <= 1)) {
+            throw new InvalidRequestException("Sample must be between 0 and 1");
+        }
+        this.sample = sample;
+    }
+
+    /**
+     * @return Captured statements, the latest first.
+     */
+    public List<SlowQuery> slowQueries() {
+        final long end = captured.get();
+        final int size = slots.length();
+        final List<SlowQuery> rsl = new ArrayList<>();
+        for (long i = end - 1; i >= Math.max(0, end - size); i--) {
+            final SlowQuery query = slots.get((int) (i % size));
+            if (query != null) {
+                rsl.add(query);
+            }
+        }
+        return rsl;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        final long elapsed = execInfo.getElapsedTime();
+        final boolean slow = elapsed >= threshold;
+        final double share = sample;
+        final boolean logged = share > 0 && ThreadLocalRandom.current().nextDouble() < share;
+        if (!slow && !logged) {
+            return;
+        }
+        final String operation = Hibernate.currentOperation();
+        for (QueryInfo info : queryInfoList) {
+            final List<List<String>> parameters = parameters(info);
+            if (logged) {
+                LOG.info("{} ms [{}] {} {}", elapsed, operation, info.getQuery(), parameters);
+            }
+            if (slow) {
+                final SlowQuery query = SlowQuery.of(new Date(), elapsed, operation, info.getQuery(),
+                        parameters, execInfo.isSuccess());
+                slots.set((int) (captured.getAndIncrement() % slots.length()), query);
+            }
+        }
+    }
+
+    /**
+     * The method export number of captured statements as notes.sql.slow counter.
+     * @param registry Meter registry.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("notes.sql.slow", captured, AtomicLong::get)
+                .description("Statements executed longer than the slow query threshold")
+                .register(registry);
+    }
+
+    /**
+     * @param info Executed statement.
+     * @return Bind parameters of every batch entry in order of index.
+     */
+    private static List<List<String>> parameters(QueryInfo info) {
+        final List<List<String>> rsl = new ArrayList<>();
+        for (List<ParameterSetOperation> operations : info.getParametersList()) {
+            final List<ParameterSetOperation> sorted = new ArrayList<>(operations);
+            sorted.sort(Comparator.comparing(op -> String.valueOf(op.getArgs()[0]),
+                    Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder())));
+            final List<String> values = new ArrayList<>(sorted.size());
+            for (ParameterSetOperation op : sorted) {
+                values.add(ParameterSetOperation.isSetNullParameterOperation(op) ? null : value(op.getArgs()));
+            }
+            rsl.add(Collections.unmodifiableList(values));
+        }
+        return Collections.unmodifiableList(rsl);
+    }
+
+    private static String value(Object[] args) {
+        final String value = args.length < 2 ? null : String.valueOf(args[1]);
+        return value != null && value.length() > VALUE_LENGTH ? value.substring(0, VALUE_LENGTH) + "..." : value;
+    }
+}
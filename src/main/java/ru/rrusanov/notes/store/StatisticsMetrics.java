@@ -0,0 +1,65 @@
+package ru.rrusanov.notes.store;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.hibernate.stat.Statistics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe meters of session factory statistics:
+ * hibernate.sessions.open, hibernate.sessions.closed, hibernate.transactions (result success or failure),
+ * hibernate.statements (status prepared or closed), hibernate.flushes, hibernate.optimistic.failures,
+ * hibernate.entities.loads, inserts, updates, deletes and fetches, hibernate.query.executions and
+ * hibernate.query.execution.max of all queries. Meters are not tagged by query string, the number
+ * of different strings is not bounded; time of queries per store method is in {@link StoreMetrics}.
+ */
+public class StatisticsMetrics implements MeterBinder {
+    private final Statistics stats;
+    private final CompositeMeterRegistry registry = new CompositeMeterRegistry();
+
+    /**
+     * @param stats Enabled statistics of session factory.
+     */
+    public StatisticsMetrics(Statistics stats) {
+        this.stats = stats;
+        this.counter("hibernate.sessions.open", "Sessions opened", Statistics::getSessionOpenCount);
+        this.counter("hibernate.sessions.closed", "Sessions closed", Statistics::getSessionCloseCount);
+        FunctionCounter.builder("hibernate.transactions", stats, Statistics::getSuccessfulTransactionCount)
+                .description("Completed transactions").tag("result", "success").register(registry);
+        FunctionCounter.builder("hibernate.transactions", stats,
+                s -> s.getTransactionCount() - s.getSuccessfulTransactionCount())
+                .description("Completed transactions").tag("result", "failure").register(registry);
+        FunctionCounter.builder("hibernate.statements", stats, Statistics::getPrepareStatementCount)
+                .description("JDBC statements").tag("status", "prepared").register(registry);
+        FunctionCounter.builder("hibernate.statements", stats, Statistics::getCloseStatementCount)
+                .description("JDBC statements").tag("status", "closed").register(registry);
+        this.counter("hibernate.flushes", "Session flushes", Statistics::getFlushCount);
+        this.counter("hibernate.optimistic.failures", "Stale state failures", Statistics::getOptimisticFailureCount);
+        this.counter("hibernate.entities.loads", "Entities loaded", Statistics::getEntityLoadCount);
+        this.counter("hibernate.entities.inserts", "Entities inserted", Statistics::getEntityInsertCount);
+        this.counter("hibernate.entities.updates", "Entities updated", Statistics::getEntityUpdateCount);
+        this.counter("hibernate.entities.deletes", "Entities deleted", Statistics::getEntityDeleteCount);
+        this.counter("hibernate.entities.fetches", "Entities fetched lazily", Statistics::getEntityFetchCount);
+        this.counter("hibernate.query.executions", "Executed queries", Statistics::getQueryExecutionCount);
+        TimeGauge.builder("hibernate.query.execution.max", stats, TimeUnit.MILLISECONDS,
+                Statistics::getQueryExecutionMaxTime)
+                .description("Slowest query execution").register(registry);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry.add(registry);
+    }
+
+    private void counter(String name, String description, ToDoubleFunction<Statistics> count) {
+        FunctionCounter.builder(name, stats, count).description(description).register(registry);
+    }
+}
@@ -0,0 +1,214 @@
+package ru.rrusanov.notes.store;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe bounded executor of store calls of request handlers, so a handler
+ * does not hold a servlet thread while it waits for DB. There are as many threads
+ * as pooled connections and a queue of fixed capacity: when the queue is full the
+ * call is rejected at once instead of waiting behind the others.
+ * Without threads calls run in the calling thread.
+ * Streamed responses read DB cursor in their own threads, each takes a permit for an idle
+ * thread of the executor which is removed from the pool until the stream ends, so streams and
+ * calls together do not use more connections than there are threads (one thread is always
+ * kept for calls). When there is no idle thread the stream is rejected as well.
+ * Calls and streams run with MDC of the submitting thread, so store meters get endpoint of the request.
+ * Meters: notes.store.executor.queued, notes.store.executor.active and notes.store.executor.streams
+ * gauges, notes.store.executor.wait timer of time in queue, notes.store.executor.rejected counter.
+ */
+public class StoreExecutor implements MeterBinder, AutoCloseable {
+    private final ThreadPoolExecutor executor;
+    private final int threads;
+    /**
+     * Number of held stream permits, guarded by this.
+     */
+    private int streams;
+    private final CompositeMeterRegistry registry = new CompositeMeterRegistry();
+    private final Timer wait = Timer.builder("notes.store.executor.wait")
+            .description("Time store calls wait in executor queue").register(registry);
+    private final Counter rejected = Counter.builder("notes.store.executor.rejected")
+            .description("Store calls rejected as executor queue is full").register(registry);
+
+    /**
+     * @param threads Number of threads, 0 to run calls in the calling thread.
+     * @param capacity Number of calls waiting for a thread, 0 to reject calls when all threads are busy.
+     */
+    public StoreExecutor(int threads, int capacity) {
+        this.threads = threads;
+        if (threads <= 0) {
+            this.executor = null;
+            return;
+        }
+        final AtomicInteger number = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                capacity > 0 ? new ArrayBlockingQueue<>(capacity) : new SynchronousQueue<>(), work -> {
+                    final Thread thread = new Thread(work, "store-" + number.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * The method run passed call on the executor.
+     * @param call Call of store methods.
+     * @param <T> Result type.
+     * @return Future completed with result of the call.
+     * @throws RejectedExecutionException If the queue is full.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> call) {
+        if (executor == null) {
+            return CompletableFuture.completedFuture(call.get());
+        }
+        final long queued = System.nanoTime();
+        final Map<String, String> context = MDC.getCopyOfContextMap();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                wait.record(System.nanoTime() - queued, TimeUnit.NANOSECONDS);
+                restore(context);
+                try {
+                    return call.get();
+                } finally {
+                    MDC.clear();
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * The method take a thread of the executor for a stream, the thread is returned
+     * to the pool when the permit is closed.
+     * @return Permit to close when the stream ends.
+     * @throws RejectedExecutionException If there is no idle thread.
+     */
+    public synchronized Permit permit() {
+        if (executor == null) {
+            return new Permit(null, MDC.getCopyOfContextMap());
+        }
+        if (streams + executor.getActiveCount() >= threads) {
+            rejected.increment();
+            throw new RejectedExecutionException("No idle store thread for a stream");
+        }
+        streams++;
+        this.resize();
+        return new Permit(this, MDC.getCopyOfContextMap());
+    }
+
+    /**
+     * The method return thread of closed stream permit to the pool.
+     */
+    private synchronized void release() {
+        streams--;
+        this.resize();
+    }
+
+    /**
+     * The method set pool size to threads not taken by streams, core size is changed
+     * on the side keeping it not greater than maximal size.
+     */
+    private void resize() {
+        final int size = Math.max(1, threads - streams);
+        if (size < executor.getMaximumPoolSize()) {
+            executor.setCorePoolSize(size);
+            executor.setMaximumPoolSize(size);
+        } else {
+            executor.setMaximumPoolSize(size);
+            executor.setCorePoolSize(size);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry.add(registry);
+        if (executor != null) {
+            Gauge.builder("notes.store.executor.queued", executor, e -> e.getQueue().size())
+                    .description("Store calls waiting in executor queue").register(registry);
+            Gauge.builder("notes.store.executor.active", executor, ThreadPoolExecutor::getActiveCount)
+                    .description("Store calls running").register(registry);
+            Gauge.builder("notes.store.executor.streams", this, StoreExecutor::heldStreams)
+                    .description("Streamed responses holding a store thread").register(registry);
+        }
+    }
+
+    /**
+     * The method stop threads, queued calls are completed first.
+     */
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * @return Number of held stream permits.
+     */
+    private synchronized int heldStreams() {
+        return streams;
+    }
+
+    /**
+     * The method set MDC of current thread to passed one.
+     * @param context Copy of MDC, null when it was empty.
+     */
+    private static void restore(Map<String, String> context) {
+        if (context == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(context);
+        }
+    }
+
+    /**
+     * Thread of the executor taken by a stream, closing it more than once has no effect.
+     */
+    public static final class Permit implements AutoCloseable {
+        private final AtomicReference<StoreExecutor> owner;
+        private final Map<String, String> context;
+
+        private Permit(StoreExecutor owner, Map<String, String> context) {
+            this.owner = new AtomicReference<>(owner);
+            this.context = context;
+        }
+
+        /**
+         * The method set MDC of the thread writing the stream to MDC of the thread taken the permit.
+         * @return This permit, to close when the stream ends.
+         */
+        public Permit open() {
+            restore(context);
+            return this;
+        }
+
+        @Override
+        public void close() {
+            MDC.clear();
+            final StoreExecutor executor = owner.getAndSet(null);
+            if (executor != null) {
+                executor.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package ru.rrusanov.notes.store;
+
+import ru.rrusanov.notes.domain.HashTag;
+import ru.rrusanov.notes.domain.Note;
+
+import java.util.Collection;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Interface describe callbacks of store changes. Methods are called
+ * after the transaction that made the change is committed, never on rollback.
+ */
+public interface StoreListener {
+    /**
+     * The tag was persisted. Tag created by concurrent transactions
+     * with the same title may be reported more than once.
+     * @param tag Persisted tag.
+     */
+    default void tagCreated(HashTag tag) {
+    }
+
+    /**
+     * The note was persisted.
+     * @param note Persisted note.
+     */
+    default void noteCreated(Note note) {
+    }
+
+    /**
+     * The note was updated.
+     * @param before Copy of the note as it was loaded from DB.
+     * @param after Note as it was committed.
+     */
+    default void noteUpdated(Note before, Note after) {
+    }
+
+    /**
+     * The note was deleted. Notes deleted by bulk statement have only id and ids of tags.
+     * @param note Deleted note.
+     */
+    default void noteDeleted(Note note) {
+    }
+
+    /**
+     * The tag was added to or removed from notes by one bulk statement.
+     * @param tagId Tag id.
+     * @param noteIds Ids of notes whose tags were changed.
+     * @param added True when the tag was added, false when removed.
+     */
+    default void notesRetagged(Long tagId, Collection<Long> noteIds, boolean added) {
+    }
+}
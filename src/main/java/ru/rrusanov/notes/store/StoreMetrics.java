@@ -0,0 +1,124 @@
+package ru.rrusanov.notes.store;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe meters of store operations, tagged by name of store method (operation)
+ * and by request handler calling it (endpoint, http method and path pattern, none outside of requests):
+ * notes.store.operation - duration of every call, outcome success or error;
+ * notes.store.rows - rows returned by the call, list or page size or number of changed rows;
+ * notes.store.transaction - duration of transactions opened by the call, result commit or rollback;
+ * notes.store.connection.acquire - time of transaction begin, mostly taking connection from the pool.
+ * Meters are created once per operation and recorded to registries bound later,
+ * until then recording does nothing.
+ */
+public class StoreMetrics implements MeterBinder {
+    /**
+     * MDC key of endpoint of the request handled in current thread.
+     */
+    public static final String ENDPOINT = "endpoint";
+    /**
+     * Endpoint tag of calls outside of requests.
+     */
+    private static final String NO_ENDPOINT = "none";
+    private final CompositeMeterRegistry registry = new CompositeMeterRegistry();
+    private final Map<String, Operation> operations = new ConcurrentHashMap<>();
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry.add(registry);
+    }
+
+    /**
+     * @param name Name of store method.
+     * @param endpoint Endpoint of the request calling the method, null outside of requests.
+     * @return Meters of the operation.
+     */
+    public Operation operation(String name, String endpoint) {
+        final String tag = endpoint == null ? NO_ENDPOINT : endpoint;
+        return operations.computeIfAbsent(name + ' ' + tag, key -> new Operation(name, tag));
+    }
+
+    /**
+     * Class describe meters of one store operation.
+     */
+    public final class Operation {
+        private final Timer success;
+        private final Timer error;
+        private final DistributionSummary rows;
+        private final Timer commit;
+        private final Timer rollback;
+        private final Timer acquire;
+
+        private Operation(String name, String endpoint) {
+            this.success = this.call(name, endpoint, "success");
+            this.error = this.call(name, endpoint, "error");
+            this.rows = DistributionSummary.builder("notes.store.rows")
+                    .description("Rows returned or changed by store operation")
+                    .tags("operation", name, ENDPOINT, endpoint).register(registry);
+            this.commit = this.transaction(name, endpoint, "commit");
+            this.rollback = this.transaction(name, endpoint, "rollback");
+            this.acquire = Timer.builder("notes.store.connection.acquire")
+                    .description("Time to begin transaction of store operation")
+                    .tags("operation", name, ENDPOINT, endpoint).register(registry);
+        }
+
+        private Timer call(String name, String endpoint, String outcome) {
+            return Timer.builder("notes.store.operation")
+                    .description("Store operation calls, joined transactions included")
+                    .tags("operation", name, ENDPOINT, endpoint, "outcome", outcome).register(registry);
+        }
+
+        private Timer transaction(String name, String endpoint, String result) {
+            return Timer.builder("notes.store.transaction")
+                    .description("Transactions opened by store operation")
+                    .tags("operation", name, ENDPOINT, endpoint, "result", result).register(registry);
+        }
+
+        /**
+         * The method record finished call and its rows.
+         * @param nanos Duration of the call.
+         * @param result Returned value, null when the call failed.
+         * @param failed True when the call threw.
+         */
+        public void called(long nanos, Object result, boolean failed) {
+            (failed ? error : success).record(nanos, TimeUnit.NANOSECONDS);
+            if (result instanceof Collection) {
+                rows.record(((Collection<?>) result).size());
+            } else if (result instanceof Page) {
+                rows.record(((Page<?>) result).getItems().size());
+            } else if (result instanceof Integer) {
+                rows.record((Integer) result);
+            }
+        }
+
+        /**
+         * The method record begin of transaction.
+         * @param nanos Duration of begin.
+         */
+        public void acquired(long nanos) {
+            acquire.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * The method record finished transaction.
+         * @param nanos Duration of the transaction.
+         * @param committed True on commit, false on rollback.
+         */
+        public void completed(long nanos, boolean committed) {
+            (committed ? commit : rollback).record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
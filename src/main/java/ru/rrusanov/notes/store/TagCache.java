@@ -0,0 +1,97 @@
+package ru.rrusanov.notes.store;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import ru.rrusanov.notes.domain.HashTag;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe bounded in-process cache of persisted hashtags by id and by title.
+ * Store puts tags only after the transaction that read or created them is committed.
+ * Cached instances are never handed out, callers get copies.
+ * Eviction runs in the thread putting a tag, so the size bound holds once put returns.
+ */
+public class TagCache implements MeterBinder {
+    private final Cache<Long, HashTag> byId;
+    private final Cache<String, HashTag> byTitle;
+
+    /**
+     * @param maximumSize Maximum number of tags kept in each index.
+     */
+    public TagCache(long maximumSize) {
+        this.byId = Caffeine.newBuilder().maximumSize(maximumSize).executor(Runnable::run).recordStats().build();
+        this.byTitle = Caffeine.newBuilder().maximumSize(maximumSize).executor(Runnable::run).recordStats().build();
+    }
+
+    /**
+     * The method find tag by id.
+     * @param id Tag id, may be null.
+     * @return Copy of cached tag or null.
+     */
+    public HashTag findById(Long id) {
+        return id == null ? null : copy(byId.getIfPresent(id));
+    }
+
+    /**
+     * The method find tag by title.
+     * @param title Tag title, may be null.
+     * @return Copy of cached tag or null.
+     */
+    public HashTag findByTitle(String title) {
+        return title == null ? null : copy(byTitle.getIfPresent(title));
+    }
+
+    /**
+     * The method put persisted tag to cache.
+     * @param tag Tag with id.
+     */
+    public void put(HashTag tag) {
+        HashTag copy = copy(tag);
+        byId.put(copy.getId(), copy);
+        if (copy.getTitle() != null) {
+            byTitle.put(copy.getTitle(), copy);
+        }
+    }
+
+    /**
+     * The method drop all cached tags.
+     */
+    public void clear() {
+        byId.invalidateAll();
+        byTitle.invalidateAll();
+    }
+
+    /**
+     * @return Hit, miss and eviction counters of lookups by id.
+     */
+    public CacheStats idStats() {
+        return byId.stats();
+    }
+
+    /**
+     * @return Hit, miss and eviction counters of lookups by title.
+     */
+    public CacheStats titleStats() {
+        return byTitle.stats();
+    }
+
+    /**
+     * The method export cache statistics as cache.* meters.
+     * @param registry Meter registry.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, byId, "hashtag.byId");
+        CaffeineCacheMetrics.monitor(registry, byTitle, "hashtag.byTitle");
+    }
+
+    private static HashTag copy(HashTag tag) {
+        return tag == null ? null : HashTag.of(tag.getId(), tag.getTitle());
+    }
+}
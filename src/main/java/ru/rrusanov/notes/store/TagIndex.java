@@ -0,0 +1,293 @@
+package ru.rrusanov.notes.store;
+
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.rrusanov.notes.domain.HashTag;
+import ru.rrusanov.notes.domain.Note;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe in-memory index from tag id to compressed bitmap of ids of notes
+ * with that tag, plus bitmap of all note ids. Combinations of tags are answered by
+ * bitmap intersection, union and difference without DB, matching notes are then
+ * loaded by id. Shared bitmaps do not cache cardinalities, so reads never modify
+ * them and run in parallel under read lock.
+ */
+public class TagIndex implements StoreListener {
+    /**
+     * The instance with logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(TagIndex.class.getName());
+    private final Map<Long, Roaring64NavigableMap> byTag = new HashMap<>();
+    private final Roaring64NavigableMap notes = bitmap();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * The method fill index with all notes and their tags from DB.
+     * @param store Store to read notes.
+     */
+    public void build(Hibernate store) {
+        final long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            store.forEachNoteTagLink((noteId, tagId) -> {
+                notes.addLong(noteId);
+                if (tagId != null) {
+                    byTag.computeIfAbsent(tagId, id -> bitmap()).addLong(noteId);
+                }
+            });
+            notes.runOptimize();
+            byTag.values().forEach(Roaring64NavigableMap::runOptimize);
+            LOG.info("Tag index built: {} notes, {} tags, {} bytes in {} ms",
+                    notes.getLongCardinality(), byTag.size(), this.sizeInBytes(),
+                    System.currentTimeMillis() - start);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The method find ids of notes that have all tags of the first list, at least one
+     * tag of the second list and no tag of the third list, one page ordered by id.
+     * Empty list does not restrict the result.
+     * @param all Tags every note has.
+     * @param any Tags of which every note has at least one.
+     * @param none Tags no note has.
+     * @param after Id of the last note on previous page, null for the first page.
+     * @param limit Page size.
+     * @return Page of note ids and total number of matching notes.
+     */
+    public IdPage search(Collection<Long> all, Collection<Long> any, Collection<Long> none,
+                         Long after, int limit) {
+        final Roaring64NavigableMap found = this.match(all, any, none);
+        final long total = found.getLongCardinality();
+        final List<Long> ids = new ArrayList<>();
+        long pos = after == null ? 0 : found.rankLong(after);
+        for (; pos < total && ids.size() < limit; pos++) {
+            ids.add(found.select(pos));
+        }
+        return new IdPage(ids, pos < total && !ids.isEmpty() ? ids.get(ids.size() - 1) : null, total);
+    }
+
+    /**
+     * The method count notes with every passed tag.
+     * @param ids Tag ids.
+     * @return Number of notes per tag id, in order of passed ids.
+     */
+    public Map<Long, Long> count(Collection<Long> ids) {
+        final Map<Long, Long> rsl = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            for (Long id : ids) {
+                final Roaring64NavigableMap tagged = byTag.get(id);
+                rsl.put(id, tagged == null ? 0L : tagged.getLongCardinality());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return rsl;
+    }
+
+    /**
+     * @return Approximate memory used by bitmaps.
+     */
+    public long sizeInBytes() {
+        lock.readLock().lock();
+        try {
+            long rsl = notes.getLongSizeInBytes();
+            for (Roaring64NavigableMap tagged : byTag.values()) {
+                rsl += tagged.getLongSizeInBytes();
+            }
+            return rsl;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void noteCreated(Note note) {
+        lock.writeLock().lock();
+        try {
+            notes.addLong(note.getId());
+            this.tag(note.getId(), note.getHashTag());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void noteUpdated(Note before, Note after) {
+        lock.writeLock().lock();
+        try {
+            this.untag(before.getId(), before.getHashTag());
+            this.tag(after.getId(), after.getHashTag());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void noteDeleted(Note note) {
+        lock.writeLock().lock();
+        try {
+            notes.removeLong(note.getId());
+            this.untag(note.getId(), note.getHashTag());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void notesRetagged(Long tagId, Collection<Long> noteIds, boolean added) {
+        lock.writeLock().lock();
+        try {
+            final Roaring64NavigableMap tagged = byTag.computeIfAbsent(tagId, id -> bitmap());
+            for (Long noteId : noteIds) {
+                if (added) {
+                    tagged.addLong(noteId);
+                } else {
+                    tagged.removeLong(noteId);
+                }
+            }
+            if (tagged.isEmpty()) {
+                byTag.remove(tagId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The method build bitmap of matching notes, see {@link #search}.
+     * @param all Tags every note has.
+     * @param any Tags of which every note has at least one.
+     * @param none Tags no note has.
+     * @return New bitmap owned by caller.
+     */
+    private Roaring64NavigableMap match(Collection<Long> all, Collection<Long> any, Collection<Long> none) {
+        final Roaring64NavigableMap rsl = new Roaring64NavigableMap();
+        lock.readLock().lock();
+        try {
+            if (all.isEmpty()) {
+                rsl.or(notes);
+            } else {
+                final List<Roaring64NavigableMap> required = new ArrayList<>();
+                for (Long id : all) {
+                    final Roaring64NavigableMap tagged = byTag.get(id);
+                    if (tagged == null) {
+                        return rsl;
+                    }
+                    required.add(tagged);
+                }
+                required.sort(Comparator.comparingLong(Roaring64NavigableMap::getLongSizeInBytes));
+                rsl.or(required.get(0));
+                for (int i = 1; i < required.size() && !rsl.isEmpty(); i++) {
+                    rsl.and(required.get(i));
+                }
+            }
+            if (!any.isEmpty()) {
+                final Roaring64NavigableMap union = new Roaring64NavigableMap();
+                for (Long id : any) {
+                    final Roaring64NavigableMap tagged = byTag.get(id);
+                    if (tagged != null) {
+                        union.or(tagged);
+                    }
+                }
+                rsl.and(union);
+            }
+            for (Long id : none) {
+                final Roaring64NavigableMap tagged = byTag.get(id);
+                if (tagged != null && !rsl.isEmpty()) {
+                    rsl.andNot(tagged);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return rsl;
+    }
+
+    /**
+     * The method add note to bitmaps of passed tags, caller holds write lock.
+     * @param noteId Note id.
+     * @param tags Tags of note.
+     */
+    private void tag(long noteId, Collection<HashTag> tags) {
+        for (HashTag tag : tags) {
+            byTag.computeIfAbsent(tag.getId(), id -> bitmap()).addLong(noteId);
+        }
+    }
+
+    /**
+     * The method remove note from bitmaps of passed tags, caller holds write lock.
+     * @param noteId Note id.
+     * @param tags Tags of note.
+     */
+    private void untag(long noteId, Collection<HashTag> tags) {
+        for (HashTag tag : tags) {
+            final Roaring64NavigableMap tagged = byTag.get(tag.getId());
+            if (tagged != null) {
+                tagged.removeLong(noteId);
+                if (tagged.isEmpty()) {
+                    byTag.remove(tag.getId());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Empty shared bitmap, without cached cardinalities so reads do not modify it.
+     */
+    private static Roaring64NavigableMap bitmap() {
+        return new Roaring64NavigableMap(false, false);
+    }
+
+    /**
+     * One page of note ids found by the index.
+     */
+    public static final class IdPage {
+        private final List<Long> ids;
+        private final Long next;
+        private final long total;
+
+        IdPage(List<Long> ids, Long next, long total) {
+            this.ids = ids;
+            this.next = next;
+            this.total = total;
+        }
+
+        /**
+         * @return Note ids in ascending order.
+         */
+        public List<Long> getIds() {
+            return ids;
+        }
+
+        /**
+         * @return Id to continue after, null on the last page.
+         */
+        public Long getNext() {
+            return next;
+        }
+
+        /**
+         * @return Number of matching notes on all pages.
+         */
+        public long getTotal() {
+            return total;
+        }
+    }
+}
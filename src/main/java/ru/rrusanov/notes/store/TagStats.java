@@ -0,0 +1,147 @@
+package ru.rrusanov.notes.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.rrusanov.notes.domain.HashTag;
+import ru.rrusanov.notes.domain.Note;
+import ru.rrusanov.notes.domain.jsonmapper.TagStat;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe in-memory number of notes per tag. Counters are striped, so
+ * concurrent commits do not contend, and change only after commit. Periodic
+ * reconciliation with DB fixes drift from changes made around the store,
+ * e.g. changes committed while counters were being loaded.
+ */
+public class TagStats implements StoreListener {
+    /**
+     * The instance with logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(TagStats.class.getName());
+    private final ConcurrentMap<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * The method correct counters by numbers counted by DB. Drift is measured against
+     * values of counters taken before DB counts are read and is added to counters,
+     * so changes counted by listener while DB counts are read are kept. A change
+     * committed right before the read but counted by listener after the values were taken
+     * is counted twice, the next reconciliation fixes it.
+     * @param store Store to count notes.
+     */
+    public void reconcile(Hibernate store) {
+        final long start = System.currentTimeMillis();
+        final Map<Long, Long> before = new HashMap<>();
+        counters.forEach((id, counter) -> before.put(id, counter.notes.sum()));
+        int corrected = 0;
+        for (TagStat actual : store.countNotesByTag()) {
+            final Counter counter = this.counter(actual.getId(), actual.getTitle());
+            final long drift = actual.getCount() - before.getOrDefault(actual.getId(), 0L);
+            if (drift != 0) {
+                counter.notes.add(drift);
+                corrected++;
+            }
+        }
+        LOG.info("Tag stats reconciled: {} tags, {} corrected in {} ms",
+                counters.size(), corrected, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * The method take snapshot of all counters.
+     * @return Number of notes per tag, the most used tags first.
+     */
+    public List<TagStat> stats() {
+        final List<TagStat> rsl = new ArrayList<>(counters.size());
+        counters.forEach((id, counter) -> rsl.add(TagStat.of(id, counter.title, counter.notes.sum())));
+        rsl.sort(Comparator.comparingLong(TagStat::getCount).reversed().thenComparing(TagStat::getId));
+        return rsl;
+    }
+
+    /**
+     * @param id Tag id.
+     * @return Number of notes with the tag.
+     */
+    public long count(Long id) {
+        final Counter counter = counters.get(id);
+        return counter == null ? 0 : counter.notes.sum();
+    }
+
+    @Override
+    public void tagCreated(HashTag tag) {
+        this.counter(tag.getId(), tag.getTitle());
+    }
+
+    @Override
+    public void noteCreated(Note note) {
+        this.add(note.getHashTag(), 1);
+    }
+
+    @Override
+    public void noteUpdated(Note before, Note after) {
+        final Set<Long> was = ids(before.getHashTag());
+        final Set<Long> is = ids(after.getHashTag());
+        for (HashTag tag : before.getHashTag()) {
+            if (!is.contains(tag.getId())) {
+                this.counter(tag.getId(), tag.getTitle()).notes.decrement();
+            }
+        }
+        for (HashTag tag : after.getHashTag()) {
+            if (!was.contains(tag.getId())) {
+                this.counter(tag.getId(), tag.getTitle()).notes.increment();
+            }
+        }
+    }
+
+    @Override
+    public void noteDeleted(Note note) {
+        this.add(note.getHashTag(), -1);
+    }
+
+    @Override
+    public void notesRetagged(Long tagId, Collection<Long> noteIds, boolean added) {
+        this.counter(tagId, null).notes.add(added ? noteIds.size() : -noteIds.size());
+    }
+
+    private void add(Collection<HashTag> tags, long delta) {
+        for (HashTag tag : tags) {
+            this.counter(tag.getId(), tag.getTitle()).notes.add(delta);
+        }
+    }
+
+    private Counter counter(Long id, String title) {
+        final Counter counter = counters.computeIfAbsent(id, key -> new Counter());
+        if (title != null) {
+            counter.title = title;
+        }
+        return counter;
+    }
+
+    private static Set<Long> ids(Collection<HashTag> tags) {
+        final Set<Long> rsl = new HashSet<>();
+        for (HashTag tag : tags) {
+            rsl.add(tag.getId());
+        }
+        return rsl;
+    }
+
+    /**
+     * Number of notes with one tag.
+     */
+    private static final class Counter {
+        private volatile String title;
+        private final LongAdder notes = new LongAdder();
+    }
+}
@@ -0,0 +1,176 @@
+package ru.rrusanov.notes.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.rrusanov.notes.domain.HashTag;
+import ru.rrusanov.notes.domain.Note;
+import ru.rrusanov.notes.domain.jsonmapper.TagStat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe in-memory completion of tag titles. Titles are kept in array sorted
+ * by lower case title, so tags starting with prefix are one range found by binary
+ * search. Tags of the range are ranked by number of notes from tag counters.
+ * Array is replaced as a whole when new tags are added, readers take no lock.
+ * Added tags are sorted and merged into a copy of the array, which is not sorted again.
+ */
+public class TagSuggest implements StoreListener {
+    /**
+     * The instance with logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(TagSuggest.class.getName());
+    private static final Comparator<Entry> ORDER = Comparator.comparing((Entry e) -> e.key)
+            .thenComparingLong(e -> e.id);
+    private static final Comparator<TagStat> RANK = Comparator.comparingLong(TagStat::getCount).reversed()
+            .thenComparing(TagStat::getTitle).thenComparing(TagStat::getId);
+    private final TagStats stats;
+    private volatile Entry[] entries = new Entry[0];
+
+    public TagSuggest(TagStats stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * The method fill titles with all tags from DB.
+     * @param store Store to read tags.
+     */
+    public void build(Hibernate store) {
+        final long start = System.currentTimeMillis();
+        this.addAll(store.findAllTags());
+        LOG.info("Tag suggest built: {} tags in {} ms", entries.length, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * The method find tags with title starting with prefix, case insensitive.
+     * Empty prefix is rejected, it would rank every tag.
+     * @param prefix Beginning of title, not empty.
+     * @param limit Maximal number of tags.
+     * @return Tags with number of notes, the most used first.
+     * @throws InvalidRequestException when prefix is empty.
+     */
+    public List<TagStat> suggest(String prefix, int limit) {
+        if (prefix.isEmpty()) {
+            throw new InvalidRequestException("Prefix must not be empty");
+        }
+        final Entry[] snapshot = entries;
+        final String key = key(prefix);
+        final int from = lowerBound(snapshot, key);
+        final PriorityQueue<TagStat> top = new PriorityQueue<>(limit + 1, RANK.reversed());
+        for (int i = from; i < snapshot.length && snapshot[i].key.startsWith(key); i++) {
+            top.add(TagStat.of(snapshot[i].id, snapshot[i].title, stats.count(snapshot[i].id)));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        final List<TagStat> rsl = new ArrayList<>(top);
+        rsl.sort(RANK);
+        return rsl;
+    }
+
+    @Override
+    public void tagCreated(HashTag tag) {
+        this.addAll(Collections.singletonList(tag));
+    }
+
+    @Override
+    public void noteCreated(Note note) {
+        this.addAll(note.getHashTag());
+    }
+
+    @Override
+    public void noteUpdated(Note before, Note after) {
+        this.addAll(after.getHashTag());
+    }
+
+    /**
+     * The method add tags missing in array by one copy of it. Only added tags are sorted,
+     * then they are merged with the sorted array in one pass.
+     * @param tags Tags to add.
+     */
+    private synchronized void addAll(Collection<HashTag> tags) {
+        final Entry[] snapshot = entries;
+        final List<Entry> added = new ArrayList<>();
+        for (HashTag tag : tags) {
+            if (tag.getId() != null && tag.getTitle() != null && !contains(snapshot, tag)) {
+                added.add(new Entry(tag.getId(), tag.getTitle()));
+            }
+        }
+        if (added.isEmpty()) {
+            return;
+        }
+        added.sort(ORDER);
+        final Entry[] rsl = new Entry[snapshot.length + added.size()];
+        int size = 0;
+        int old = 0;
+        for (Entry entry : added) {
+            while (old < snapshot.length && ORDER.compare(snapshot[old], entry) < 0) {
+                rsl[size++] = snapshot[old++];
+            }
+            if (size == 0 || ORDER.compare(rsl[size - 1], entry) != 0) {
+                rsl[size++] = entry;
+            }
+        }
+        System.arraycopy(snapshot, old, rsl, size, snapshot.length - old);
+        size += snapshot.length - old;
+        entries = size == rsl.length ? rsl : Arrays.copyOf(rsl, size);
+    }
+
+    private static boolean contains(Entry[] snapshot, HashTag tag) {
+        final String key = key(tag.getTitle());
+        for (int i = lowerBound(snapshot, key); i < snapshot.length && snapshot[i].key.equals(key); i++) {
+            if (snapshot[i].id == tag.getId()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param snapshot Sorted entries.
+     * @param key Lower case title or prefix.
+     * @return Index of the first entry not less than key.
+     */
+    private static int lowerBound(Entry[] snapshot, String key) {
+        int low = 0;
+        int high = snapshot.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (snapshot[mid].key.compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static String key(String title) {
+        return title.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Tag title with its sort key.
+     */
+    private static final class Entry {
+        private final long id;
+        private final String title;
+        private final String key;
+
+        Entry(long id, String title) {
+            this.id = id;
+            this.title = title;
+            this.key = key(title);
+        }
+    }
+}
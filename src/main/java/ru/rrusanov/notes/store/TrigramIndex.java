@@ -0,0 +1,401 @@
+package ru.rrusanov.notes.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.rrusanov.notes.domain.Note;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+
+/**
+ * @author Roman Rusanov
+ * @since 18.10.2026
+ * email roman9628@gmail.com
+ * Class describe in-memory inverted index from character trigrams of note text
+ * and topic to sorted lists of note ids. Substring query intersects posting lists
+ * of its trigrams, candidates are verified against DB by primary key, as intersection
+ * does not check the trigrams are adjacent. Only ids and dates of notes are kept in
+ * memory, text and topic are not. Matching is case sensitive like SQL LIKE.
+ */
+public class TrigramIndex implements StoreListener {
+    /**
+     * The instance with logger.
+     */
+    private static final Logger LOG = LoggerFactory.getLogger(TrigramIndex.class.getName());
+    /**
+     * Id ranges per build thread, more ranges even out uneven id density.
+     */
+    private static final int RANGES_PER_THREAD = 4;
+    /**
+     * Maximal number of candidates verified by one query.
+     */
+    private static final int MAX_VERIFIED = 1000;
+    private final Hibernate store;
+    private final Map<Long, PostingList> postings = new HashMap<>();
+    private final Map<Long, Doc> docs = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /**
+     * Changes committed while index is being built, replayed after scanned parts
+     * are appended. Null when no build runs. Guarded by write lock.
+     */
+    private List<Runnable> pending;
+    /**
+     * Number of notes removed without their text, their ids are left in posting lists
+     * until purged. Guarded by write lock.
+     */
+    private int stale;
+
+    /**
+     * @param store Store to read notes and verify candidates.
+     */
+    public TrigramIndex(Hibernate store) {
+        this.store = store;
+    }
+
+    /**
+     * The method fill index with all notes from DB. Id range is split in parts
+     * scanned in parallel, each part is indexed separately and then appended.
+     * Changes passed to listener methods during the build are kept aside and applied
+     * after it, so index may be registered as listener before the build and no
+     * change committed meanwhile is lost.
+     * @param threads Number of parallel scans, each holds a DB connection.
+     */
+    public void build(int threads) {
+        final long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        final long[] range = store.findNoteIdRange();
+        final int parts = threads * RANGES_PER_THREAD;
+        final ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<TrigramIndex>> scans = new ArrayList<>();
+            if (range != null) {
+                final long step = (range[1] - range[0]) / parts + 1;
+                for (long from = range[0]; from <= range[1]; from += step) {
+                    final long lo = from;
+                    final long hi = Math.min(from + step, range[1] + 1);
+                    scans.add(pool.submit(() -> {
+                        final TrigramIndex part = new TrigramIndex(store);
+                        store.forEachNoteText(lo, hi, part::index);
+                        return part;
+                    }));
+                }
+            }
+            final List<TrigramIndex> built = new ArrayList<>();
+            for (Future<TrigramIndex> scan : scans) {
+                built.add(scan.get());
+            }
+            lock.writeLock().lock();
+            try {
+                for (TrigramIndex part : built) {
+                    this.append(part);
+                }
+                for (Runnable change : pending) {
+                    change.run();
+                }
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Trigram index build interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Trigram index build failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        LOG.info("Trigram index built: {} notes, {} trigrams in {} ms",
+                docs.size(), postings.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * The method check that index can answer the query, shorter strings have no trigrams.
+     * @param str Substring to find.
+     * @return True if string is at least three chars long.
+     */
+    public boolean supports(String str) {
+        return str.length() >= 3;
+    }
+
+    /**
+     * The method find ids of notes that contain passed substring in text or topic,
+     * one page ordered by (dateCreate, id). Candidates are verified in page order by
+     * growing chunks until the page is full.
+     * @param str Substring to find, see {@link #supports}.
+     * @param keyset Page position.
+     * @return Page of note ids.
+     */
+    public Page<Long> search(String str, Keyset keyset) {
+        final List<Doc> candidates = new ArrayList<>();
+        for (Doc doc : this.candidates(str)) {
+            if (doc.date != null && keyset.follows(doc.date, doc.id)) {
+                candidates.add(doc);
+            }
+        }
+        Comparator<Doc> order = Comparator.<Doc, Date>comparing(doc -> doc.date)
+                .thenComparingLong(doc -> doc.id);
+        candidates.sort(keyset.isDescending() ? order.reversed() : order);
+        final List<Doc> found = new ArrayList<>();
+        int from = 0;
+        int chunk = Math.min(keyset.getLimit() + 1, MAX_VERIFIED);
+        while (from < candidates.size() && found.size() <= keyset.getLimit()) {
+            final List<Doc> part = candidates.subList(from, Math.min(from + chunk, candidates.size()));
+            final Map<Long, Integer> verified = store.findNotesContaining(ids(part), str);
+            for (Doc doc : part) {
+                if (verified.containsKey(doc.id)) {
+                    found.add(doc);
+                }
+            }
+            from += part.size();
+            chunk = Math.min(chunk * 2, MAX_VERIFIED);
+        }
+        final List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < found.size() && i < keyset.getLimit(); i++) {
+            ids.add(found.get(i).id);
+        }
+        Keyset next = null;
+        if (found.size() > keyset.getLimit()) {
+            final Doc last = found.get(keyset.getLimit() - 1);
+            next = keyset.after(last.date, last.id);
+        }
+        return new Page<>(ids, next);
+    }
+
+    /**
+     * The method find ids of the most relevant notes that contain passed substring.
+     * Relevance is the share of topic or text covered by the substring, so notes with
+     * the shortest field containing it come first. All candidates are verified.
+     * @param str Substring to find, see {@link #supports}.
+     * @param limit Maximum number of ids.
+     * @return Note ids, most relevant first.
+     */
+    public List<Long> searchByRelevance(String str, int limit) {
+        final List<Doc> candidates = this.candidates(str);
+        final Map<Long, Integer> lengths = new HashMap<>();
+        for (int from = 0; from < candidates.size(); from += MAX_VERIFIED) {
+            lengths.putAll(store.findNotesContaining(
+                    ids(candidates.subList(from, Math.min(from + MAX_VERIFIED, candidates.size()))), str));
+        }
+        final List<Long> ids = new ArrayList<>(lengths.keySet());
+        ids.sort(Comparator.<Long>comparingInt(lengths::get).thenComparingLong(id -> id));
+        return ids.size() > limit ? new ArrayList<>(ids.subList(0, limit)) : ids;
+    }
+
+    /**
+     * @return Number of indexed notes.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void noteCreated(Note note) {
+        this.apply(() -> {
+            this.unindex(note);
+            this.index(note);
+        });
+    }
+
+    @Override
+    public void noteUpdated(Note before, Note after) {
+        this.apply(() -> {
+            this.unindex(before);
+            this.index(after);
+        });
+    }
+
+    @Override
+    public void noteDeleted(Note note) {
+        this.apply(() -> this.unindex(note));
+    }
+
+    /**
+     * The method apply change to index or keep it until running build ends.
+     * Changes are idempotent and every one ends by indexing the latest state of the note,
+     * so replaying one already seen by the build scan is harmless.
+     * @param change Change of index.
+     */
+    private void apply(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                pending.add(change);
+            } else {
+                change.run();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The method find indexed notes having every trigram of passed substring.
+     * They may still not contain it, so they are verified against DB.
+     * @param str Substring at least three chars long.
+     * @return Candidate notes.
+     */
+    private List<Doc> candidates(String str) {
+        final List<Doc> rsl = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            final List<PostingList> lists = new ArrayList<>();
+            for (int i = 0; i + 2 < str.length(); i++) {
+                final PostingList list = postings.get(trigram(str, i));
+                if (list == null) {
+                    return rsl;
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(PostingList::size));
+            long[] candidates = lists.get(0).toArray();
+            int count = candidates.length;
+            for (int i = 1; i < lists.size() && count > 0; i++) {
+                count = lists.get(i).retainIn(candidates, count);
+            }
+            for (long id : Arrays.copyOf(candidates, count)) {
+                final Doc doc = docs.get(id);
+                if (doc != null) {
+                    rsl.add(doc);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return rsl;
+    }
+
+    /**
+     * The method add note to index, caller holds write lock.
+     * @param note Note with id, text, topic and date.
+     */
+    private void index(Note note) {
+        final Doc doc = new Doc(note.getId(), note.getDateCreate());
+        docs.put(doc.id, doc);
+        forEachTrigram(note, key -> postings.computeIfAbsent(key, k -> new PostingList()).add(doc.id));
+    }
+
+    /**
+     * The method remove note from index, caller holds write lock. Trigrams are taken
+     * from passed note, it must have the indexed text and topic. Notes of bulk deletes
+     * carry id only, their ids are purged from all posting lists once there are more
+     * of them than indexed notes.
+     * @param note Note as it was indexed.
+     */
+    private void unindex(Note note) {
+        final long id = note.getId();
+        if (docs.remove(id) == null) {
+            return;
+        }
+        if (note.getText() == null && note.getTopic() == null) {
+            if (++stale > docs.size()) {
+                this.purge();
+            }
+            return;
+        }
+        forEachTrigram(note, key -> {
+            final PostingList list = postings.get(key);
+            if (list != null) {
+                list.remove(id);
+                if (list.size() == 0) {
+                    postings.remove(key);
+                }
+            }
+        });
+    }
+
+    /**
+     * The method remove ids of not indexed notes from all posting lists, caller holds write lock.
+     */
+    private void purge() {
+        postings.values().removeIf(list -> list.retain(docs::containsKey) == 0);
+        stale = 0;
+    }
+
+    /**
+     * The method append index built over greater ids, caller holds write lock.
+     * @param part Index of greater ids.
+     */
+    private void append(TrigramIndex part) {
+        docs.putAll(part.docs);
+        part.postings.forEach((key, list) -> {
+            final PostingList own = postings.get(key);
+            if (own == null) {
+                postings.put(key, list);
+            } else {
+                own.append(list);
+            }
+        });
+    }
+
+    /**
+     * The method pack three chars starting at passed position to one key.
+     * @param str String.
+     * @param from Position of the first char.
+     * @return Trigram key.
+     */
+    private static long trigram(String str, int from) {
+        return (long) str.charAt(from) << 32 | (long) str.charAt(from + 1) << 16 | str.charAt(from + 2);
+    }
+
+    /**
+     * The method pass every trigram of note text and topic to consumer.
+     * @param note Note.
+     * @param consumer Action applied to trigram keys.
+     */
+    private static void forEachTrigram(Note note, LongConsumer consumer) {
+        for (String field : new String[] {note.getText(), note.getTopic()}) {
+            for (int i = 0; field != null && i + 2 < field.length(); i++) {
+                consumer.accept(trigram(field, i));
+            }
+        }
+    }
+
+    private static List<Long> ids(List<Doc> docs) {
+        final List<Long> rsl = new ArrayList<>(docs.size());
+        for (Doc doc : docs) {
+            rsl.add(doc.id);
+        }
+        return rsl;
+    }
+
+    /**
+     * Indexed note, id and date only.
+     */
+    private static final class Doc {
+        private final long id;
+        private final Date date;
+
+        private Doc(long id, Date date) {
+            this.id = id;
+            this.date = date;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+-- Point relations of duplicated hashtags to the first hashtag with the same title
+update note_hashtag nh
+set hashtag_id = d.keep_id
+from (select id, min(id) over (partition by title) as keep_id
+      from hashtag
+      where title is not null) d
+where nh.hashtag_id = d.id
+  and d.id <> d.keep_id;
+-- Remove duplicated hashtags
+delete
+from hashtag h
+    using hashtag k
+where h.title = k.title
+  and h.id > k.id;
+-- Hashtag title is unique, used as conflict target of hashtag upsert
+create unique index hashtag_title_uindex
+    on hashtag (title);
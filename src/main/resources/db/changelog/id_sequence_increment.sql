@@ -0,0 +1,4 @@
+-- Identity sequence of notes hands out blocks of 50 ids, matches allocationSize of the pooled id generator,
+-- hashtags are inserted only by the upsert taking id from column default and keep increment 1
+alter table note
+    alter column id set increment by 50;
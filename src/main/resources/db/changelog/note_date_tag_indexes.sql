@@ -0,0 +1,17 @@
+-- Remove duplicated relations between note and hashtag
+delete
+from note_hashtag a
+    using note_hashtag b
+where a.ctid > b.ctid
+  and a.note_id = b.note_id
+  and a.hashtag_id = b.hashtag_id;
+-- Relation between note and hashtag is unique, primary key serves lookups by note
+alter table note_hashtag
+    add constraint note_hashtag_pkey
+        primary key (note_id, hashtag_id);
+-- Reverse index serves lookups of notes by hashtag
+create index note_hashtag_hashtag_id_note_id_idx
+    on note_hashtag (hashtag_id, note_id);
+-- Index serves date filters and keyset pages ordered by (datecreate, id)
+create index note_datecreate_id_idx
+    on note (datecreate, id);
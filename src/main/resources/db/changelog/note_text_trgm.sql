@@ -0,0 +1,7 @@
+-- Trigram support for substring search
+create extension if not exists pg_trgm;
+-- Trigram indexes serving "contains" search by text and topic
+create index note_text_trgm_idx
+    on note using gin (text gin_trgm_ops);
+create index note_topic_trgm_idx
+    on note using gin (topic gin_trgm_ops);
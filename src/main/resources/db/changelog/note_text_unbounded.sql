@@ -0,0 +1,3 @@
+-- Note text is not limited in length, varchar to text needs no table rewrite
+alter table note
+    alter column text type text;
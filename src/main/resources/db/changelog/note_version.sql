@@ -0,0 +1,3 @@
+-- Version of note for optimistic locking, adding column with constant default needs no table rewrite
+alter table note
+    add column version bigint not null default 0;
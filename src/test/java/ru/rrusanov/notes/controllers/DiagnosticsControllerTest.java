@@ -0,0 +1,45 @@
+package ru.rrusanov.notes.controllers;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.rrusanov.notes.store.SlowQueryLog;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Statement logging may not be switched by request with default configuration.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class DiagnosticsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SlowQueryLog log;
+
+    @Test
+    void whenSwitchSqlLogByDefaultThenForbidden() throws Exception {
+        mockMvc.perform(put("/diagnostics/sql-log?sample=1"))
+                .andExpect(status().isForbidden());
+        assertThat(log.getSample(), is(0.0));
+        mockMvc.perform(get("/diagnostics/sql-log"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("0.0"));
+    }
+
+    @Test
+    void whenSlowQueriesThenOk() throws Exception {
+        mockMvc.perform(get("/diagnostics/slow-queries"))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,139 @@
+package ru.rrusanov.notes.controllers;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.rrusanov.notes.domain.HashTag;
+import ru.rrusanov.notes.domain.Note;
+import ru.rrusanov.notes.domain.jsonmapper.BatchResult;
+import ru.rrusanov.notes.store.Hibernate;
+import ru.rrusanov.notes.store.Keyset;
+import ru.rrusanov.notes.store.NoteFixture;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Batch import with chunks of three notes, every chunk is persisted in its own transaction.
+ */
+@SpringBootTest(properties = "notes.batch.chunk-size=3")
+@AutoConfigureMockMvc
+class NoteControllerBatchTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private Hibernate store;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private NoteFixture fixture;
+
+    @BeforeEach
+    void init() {
+        fixture = new NoteFixture(store);
+    }
+
+    @AfterEach
+    void clean() {
+        fixture.clean();
+    }
+
+    @Test
+    void whenJsonArrayThenInvalidRejectedAndFailedChunkRolledBack() throws Exception {
+        List<String> notes = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            notes.add(note("" + i, null));
+        }
+        notes.set(1, "{\"text\":\"" + fixture.marker() + "\"}");
+        notes.set(5, "{\"text\":\"" + fixture.marker() + "\",\"topic\":\""
+                + String.join("", Collections.nCopies(300, "x")) + "\",\"dateCreate\":1600000000000}");
+        List<BatchResult> results = importBatch(MediaType.APPLICATION_JSON, "[" + String.join(",", notes) + "]");
+        assertThat(statuses(results), contains("CREATED", "REJECTED", "CREATED", "CREATED",
+                "FAILED", "FAILED", "FAILED", "CREATED"));
+        assertThat(results.get(1).getError(), is("text and dateCreate are required"));
+        assertThat(results.get(4).getId(), is(nullValue()));
+        for (int i : new int[] {0, 2, 3, 7}) {
+            assertThat(store.findNoteById(results.get(i).getId()).getText(), is(fixture.marker() + i));
+        }
+        assertThat(store.findNotes(fixture.filter(), Keyset.first(100, "asc"), Note.class)
+                .getItems().size(), is(4));
+    }
+
+    @Test
+    void whenNdjsonWithMalformedLineThenReadingStops() throws Exception {
+        String body = note("0", null) + "\n" + note("1", null) + "\n{\"text\": broken\n" + note("3", null) + "\n";
+        List<BatchResult> results = importBatch(MediaType.APPLICATION_NDJSON, body);
+        assertThat(statuses(results), contains("CREATED", "CREATED", "FAILED"));
+        assertThat(results.get(2).getIndex(), is(2));
+        assertThat(store.findNoteById(results.get(1).getId()).getText(), is(fixture.marker() + 1));
+    }
+
+    @Test
+    void whenManyNotesWithNewTagsThenIdsTakenWithoutGaps() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 120; i++) {
+            body.append(note("" + i, fixture.title("" + i % 3))).append('\n');
+        }
+        List<BatchResult> results = importBatch(MediaType.APPLICATION_NDJSON, body.toString());
+        assertThat(results.size(), is(120));
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (BatchResult result : results) {
+            assertThat(result.getStatus(), is(BatchResult.Status.CREATED));
+            min = Math.min(min, result.getId());
+            max = Math.max(max, result.getId());
+        }
+        assertThat(max - min, is(119L));
+        List<Long> tagIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            for (HashTag persisted : store.findNoteById(results.get(i).getId()).getHashTag()) {
+                tagIds.add(persisted.getId());
+            }
+        }
+        Collections.sort(tagIds);
+        assertThat(tagIds.get(2) - tagIds.get(0), is(2L));
+    }
+
+    private List<BatchResult> importBatch(MediaType type, String body) throws Exception {
+        MvcResult started = mockMvc.perform(post("/note/batch").contentType(type).content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String json = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(json, new TypeReference<List<BatchResult>>() { });
+    }
+
+    private String note(String suffix, String tag) {
+        return "{\"text\":\"" + fixture.marker() + suffix + "\",\"dateCreate\":1600000000000"
+                + (tag == null ? "" : ",\"hashTag\":[{\"title\":\"" + tag + "\"}]") + "}";
+    }
+
+    private static List<String> statuses(List<BatchResult> results) {
+        List<String> rsl = new ArrayList<>();
+        for (BatchResult result : results) {
+            rsl.add(result.getStatus().name());
+        }
+        return rsl;
+    }
+}
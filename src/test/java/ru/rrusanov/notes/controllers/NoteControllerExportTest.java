@@ -0,0 +1,208 @@
+package ru.rrusanov.notes.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import ru.rrusanov.notes.domain.HashTag;
+import ru.rrusanov.notes.domain.Note;
+import ru.rrusanov.notes.store.Hibernate;
+import ru.rrusanov.notes.store.NoteFixture;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Notes written to streamed response bodies one by one as they are read from DB cursor.
+ * Bodies may hold notes of other tests, only lines of the fixture are checked.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class NoteControllerExportTest {
+
+    private static final Instant FIRST = Instant.parse("2021-01-01T00:00:00Z");
+
+    private static final Instant SECOND = Instant.parse("2021-01-02T00:00:00Z");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private Hibernate store;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final List<Note> notes = new ArrayList<>();
+
+    private NoteFixture fixture;
+
+    private List<HashTag> tags;
+
+    @BeforeEach
+    void init() {
+        fixture = new NoteFixture(store);
+        tags = fixture.tags("a", "b");
+        Note first = Note.of(fixture.marker(), Date.from(FIRST));
+        first.setTopic("plain");
+        first.setHashTag(tags);
+        notes.add(store.createModel(first));
+        notes.add(fixture.note("says \"hi\",\nthen leaves", Date.from(SECOND)));
+    }
+
+    @AfterEach
+    void clean() {
+        fixture.clean();
+    }
+
+    @Test
+    void whenStreamAllThenEveryNoteOnOwnLineInIdOrder() throws Exception {
+        String body = perform(get("/note/").accept(MediaType.APPLICATION_NDJSON))
+                .getResponse().getContentAsString(StandardCharsets.UTF_8);
+        Map<Long, JsonNode> byId = new HashMap<>();
+        long previous = Long.MIN_VALUE;
+        for (String line : body.split("\n")) {
+            JsonNode note = mapper.readTree(line);
+            assertThat(previous, lessThan(note.get("id").asLong()));
+            previous = note.get("id").asLong();
+            byId.put(previous, note);
+        }
+        assertThat(body.endsWith("\n"), is(true));
+        JsonNode first = byId.get(notes.get(0).getId());
+        assertThat(first.get("text").asText(), is(fixture.marker()));
+        assertThat(first.get("topic").asText(), is("plain"));
+        assertThat(titles(first), contains(fixture.title("a"), fixture.title("b")));
+        JsonNode second = byId.get(notes.get(1).getId());
+        assertThat(second.get("text").asText(), is(notes.get(1).getText()));
+        assertThat(second.get("hashTag").size(), is(0));
+    }
+
+    @Test
+    void whenExportSinceThenOnlyLaterNotes() throws Exception {
+        String body = perform(get("/note/export").param("since", "2021-01-02"))
+                .getResponse().getContentAsString(StandardCharsets.UTF_8);
+        List<String> lines = this.ofFixture(body.split("\n"));
+        assertThat(lines.size(), is(1));
+        JsonNode note = mapper.readTree(lines.get(0));
+        assertThat(note.get("id").asLong(), is(notes.get(1).getId()));
+        assertThat(note.get("text").asText(), is(notes.get(1).getText()));
+    }
+
+    @Test
+    void whenExportCsvThenQuotesAndLineBreaksEscaped() throws Exception {
+        MvcResult result = perform(get("/note/export").param("format", "csv").param("since", "2021-01-01"));
+        assertThat(result.getResponse().getContentType(), is("text/csv;charset=UTF-8"));
+        assertThat(result.getResponse().getHeader(HttpHeaders.CONTENT_DISPOSITION),
+                is("attachment; filename=\"notes.csv\""));
+        String[] all = result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\r\n");
+        assertThat(all[0], is("id,dateCreate,topic,text,tagIds,tags"));
+        List<String> rows = this.ofFixture(all);
+        assertThat(rows.size(), is(2));
+        String[] first = rows.get(0).split(",");
+        assertThat(first[0], is(String.valueOf(notes.get(0).getId())));
+        assertThat(first[1], is("2021-01-01T00:00:00Z"));
+        assertThat(first[2], is("plain"));
+        assertThat(first[3], is(fixture.marker()));
+        assertThat(Arrays.asList(first[4].split("\\|")),
+                containsInAnyOrder(String.valueOf(tags.get(0).getId()), String.valueOf(tags.get(1).getId())));
+        assertThat(Arrays.asList(first[5].split("\\|")),
+                containsInAnyOrder(fixture.title("a"), fixture.title("b")));
+        assertThat(rows.get(1), is(notes.get(1).getId() + ",2021-01-02T00:00:00Z,,"
+                + "\"" + fixture.marker() + " says \"\"hi\"\",\nthen leaves\",,"));
+    }
+
+    @Test
+    void whenExportGzipThenEncodedBodyDecompressed() throws Exception {
+        MvcResult result = perform(get("/note/export").param("since", "2021-01-01").param("gzip", "true"));
+        assertThat(result.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING), is("gzip"));
+        byte[] raw = result.getResponse().getContentAsByteArray();
+        assertThat(raw[0] == (byte) 0x1f && raw[1] == (byte) 0x8b, is(true));
+        List<String> lines = this.ofFixture(gunzip(raw).split("\n"));
+        assertThat(lines.size(), is(2));
+        assertThat(mapper.readTree(lines.get(0)).get("id").asLong(), is(notes.get(0).getId()));
+        assertThat(mapper.readTree(lines.get(1)).get("id").asLong(), is(notes.get(1).getId()));
+    }
+
+    @Test
+    void whenExportUnknownFormatThenBadRequest() throws Exception {
+        mockMvc.perform(get("/note/export").param("format", "xml"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Unknown format: xml"));
+    }
+
+    /**
+     * The method perform request answered by streaming body and wait for the body.
+     * @param builder Request.
+     * @return Result with complete body.
+     * @throws Exception if request fails.
+     */
+    private MvcResult perform(RequestBuilder builder) throws Exception {
+        MvcResult started = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn();
+    }
+
+    private List<String> ofFixture(String[] lines) {
+        List<String> rsl = new ArrayList<>();
+        for (String line : lines) {
+            if (line.contains(fixture.marker())) {
+                rsl.add(line);
+            }
+        }
+        return rsl;
+    }
+
+    private static List<String> titles(JsonNode note) {
+        List<String> rsl = new ArrayList<>();
+        for (JsonNode tag : note.get("hashTag")) {
+            rsl.add(tag.get("title").asText());
+        }
+        rsl.sort(String::compareTo);
+        return rsl;
+    }
+
+    private static String gunzip(byte[] raw) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(raw))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package ru.rrusanov.notes.controllers;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import ru.rrusanov.notes.domain.Note;
+import ru.rrusanov.notes.store.Hibernate;
+import ru.rrusanov.notes.store.NoteFixture;
+
+import java.util.Date;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Store meters of calls made while a request is handled are tagged by endpoint of the request,
+ * on store executor threads and in streamed responses too.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class NoteControllerMetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private Hibernate store;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private NoteFixture fixture;
+
+    private Note note;
+
+    @BeforeEach
+    void init() {
+        fixture = new NoteFixture(store);
+        note = fixture.note("", new Date());
+    }
+
+    @AfterEach
+    void clean() {
+        fixture.clean();
+    }
+
+    @Test
+    void whenNoteReadThenOperationTaggedByEndpoint() throws Exception {
+        long before = count("findNoteById", "GET /note/{id}");
+        perform(get("/note/" + note.getId())).andExpect(status().isOk());
+        assertThat(count("findNoteById", "GET /note/{id}"), is(before + 1));
+    }
+
+    @Test
+    void whenExportStreamedThenOperationTaggedByEndpoint() throws Exception {
+        long before = count("exportNotes", "GET /note/export");
+        perform(get("/note/export?since=2100-01-01")).andExpect(status().isOk());
+        assertThat(count("exportNotes", "GET /note/export"), is(before + 1));
+    }
+
+    private long count(String operation, String endpoint) {
+        Timer timer = registry.find("notes.store.operation")
+                .tags("operation", operation, "endpoint", endpoint, "outcome", "success").timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private ResultActions perform(RequestBuilder builder) throws Exception {
+        ResultActions actions = mockMvc.perform(builder);
+        MvcResult result = actions.andReturn();
+        return result.getRequest().isAsyncStarted() ? mockMvc.perform(asyncDispatch(result)) : actions;
+    }
+}
@@ -0,0 +1,99 @@
+package ru.rrusanov.notes.controllers;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import ru.rrusanov.notes.store.StoreExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Store executor has one thread and no queue, while the thread is busy store calls
+ * and streams of request handlers are rejected with 503 status.
+ */
+@SpringBootTest(properties = {"notes.async.threads=1", "notes.async.queue-capacity=0"})
+@AutoConfigureMockMvc
+class NoteControllerOverloadTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StoreExecutor executor;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    void whenExecutorBusyThenServiceUnavailableWithRetryAfter() throws Exception {
+        double before = registry.get("notes.store.executor.rejected").counter().count();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> busy = executor.submit(() -> {
+            started.countDown();
+            try {
+                return release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        });
+        assertThat(started.await(10, TimeUnit.SECONDS), is(true));
+        try {
+            perform(get("/note/"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+            perform(get("/note/findByText/overload"))
+                    .andExpect(status().isServiceUnavailable());
+            perform(post("/note/batch").contentType(MediaType.APPLICATION_JSON).content("[]"))
+                    .andExpect(status().isServiceUnavailable());
+            perform(get("/note/").accept(MediaType.APPLICATION_NDJSON))
+                    .andExpect(status().isServiceUnavailable());
+            perform(get("/note/export"))
+                    .andExpect(status().isServiceUnavailable());
+            assertThat(registry.get("notes.store.executor.rejected").counter().count(), is(before + 5));
+        } finally {
+            release.countDown();
+        }
+        assertThat(busy.get(10, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test
+    void whenStreamHoldsThreadThenOtherStreamRejectedAndCallsRun() throws Exception {
+        try (StoreExecutor.Permit permit = executor.permit()) {
+            assertThat(registry.get("notes.store.executor.streams").gauge().value(), is(1.0));
+            perform(get("/note/export"))
+                    .andExpect(status().isServiceUnavailable());
+            perform(get("/note/?limit=1"))
+                    .andExpect(status().isOk());
+        }
+        assertThat(registry.get("notes.store.executor.streams").gauge().value(), is(0.0));
+        perform(get("/note/export?since=2100-01-01"))
+                .andExpect(status().isOk());
+        assertThat(registry.get("notes.store.executor.streams").gauge().value(), is(0.0));
+    }
+
+    private ResultActions perform(RequestBuilder builder) throws Exception {
+        ResultActions actions = mockMvc.perform(builder);
+        MvcResult result = actions.andReturn();
+        return result.getRequest().isAsyncStarted() ? mockMvc.perform(asyncDispatch(result)) : actions;
+    }
+}
@@ -0,0 +1,164 @@
+package ru.rrusanov.notes.controllers;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import ru.rrusanov.notes.store.Hibernate;
+import ru.rrusanov.notes.store.NoteFixture;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pages of notes are walked by cursors from X-Next-Cursor header. Three of five notes
+ * share the same date, so the order between them is kept by id.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class NoteControllerPagingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private Hibernate store;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private NoteFixture fixture;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void init() {
+        fixture = new NoteFixture(store);
+        long[] times = {2_000_000L, 1_000_000L, 2_000_000L, 3_000_000L, 2_000_000L};
+        for (long time : times) {
+            fixture.note("", new Date(time));
+        }
+        ids.addAll(ids("asc", 10));
+    }
+
+    @AfterEach
+    void clean() {
+        fixture.clean();
+    }
+
+    @Test
+    void whenDatesEqualThenOrderedById() {
+        assertThat(ids.size(), is(5));
+        List<Long> tied = ids.subList(1, 4);
+        List<Long> sorted = new ArrayList<>(tied);
+        Collections.sort(sorted);
+        assertThat(tied, is(sorted));
+    }
+
+    @Test
+    void whenWalkedByCursorThenEveryNoteOnceInOrder() throws Exception {
+        for (int limit = 1; limit <= 5; limit++) {
+            assertThat(ids("asc", limit), is(ids));
+            List<Long> reversed = new ArrayList<>(ids);
+            Collections.reverse(reversed);
+            assertThat(ids("desc", limit), is(reversed));
+        }
+    }
+
+    @Test
+    void whenUpdatedWithoutDateThenStillPaged() throws Exception {
+        perform(put("/note/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"id\": " + ids.get(0) + ", \"topic\": \"changed\"}"))
+                .andExpect(status().isOk());
+        assertThat(ids("asc", 10), is(ids));
+    }
+
+    @Test
+    void whenFindByTextWithoutSortThenPagedByDateAndRelevanceOptIn() throws Exception {
+        perform(get("/note/findByText/" + fixture.marker() + "?limit=3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(ids.get(0)))
+                .andExpect(jsonPath("$[2].id").value(ids.get(2)))
+                .andExpect(header().exists(NoteController.NEXT_CURSOR));
+        perform(get("/note/findByText/" + fixture.marker() + "?sort=relevance&limit=3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(3)))
+                .andExpect(header().doesNotExist(NoteController.NEXT_CURSOR));
+    }
+
+    @Test
+    void whenLastPageThenNoCursor() throws Exception {
+        perform(get("/note/findByText/" + fixture.marker() + "?sort=asc&limit=5"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(NoteController.NEXT_CURSOR));
+        String cursor = perform(get("/note/findByText/" + fixture.marker() + "?sort=asc&limit=3"))
+                .andExpect(header().exists(NoteController.NEXT_CURSOR))
+                .andReturn().getResponse().getHeader(NoteController.NEXT_CURSOR);
+        perform(get("/note/findByText/" + fixture.marker() + "?limit=2&cursor=" + cursor))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(NoteController.NEXT_CURSOR));
+    }
+
+    @Test
+    void whenCursorMalformedThenBadRequest() throws Exception {
+        for (String cursor : new String[] {"%25%25", "YWJj", "YXNjOng6MQ"}) {
+            perform(get("/note/?cursor=" + cursor)).andExpect(status().isBadRequest());
+            perform(get("/note/findByText/" + fixture.marker() + "?cursor=" + cursor))
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    /**
+     * @param sort Sort order.
+     * @param limit Page size.
+     * @return Ids of all notes of the test from pages walked by cursor.
+     */
+    private List<Long> ids(String sort, int limit) {
+        List<Long> rsl = new ArrayList<>();
+        try {
+            String url = "/note/findByText/" + fixture.marker() + "?view=summary&limit=" + limit + "&sort=" + sort;
+            String cursor = null;
+            do {
+                MvcResult result = perform(get(cursor == null ? url : url + "&cursor=" + cursor))
+                        .andExpect(status().isOk()).andReturn();
+                List<Map<String, Object>> items = mapper.readValue(result.getResponse().getContentAsString(),
+                        new TypeReference<List<Map<String, Object>>>() { });
+                assertThat(items.size() <= limit, is(true));
+                for (Map<String, Object> item : items) {
+                    rsl.add(((Number) item.get("id")).longValue());
+                }
+                cursor = result.getResponse().getHeader(NoteController.NEXT_CURSOR);
+            } while (cursor != null);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return rsl;
+    }
+
+    private ResultActions perform(RequestBuilder builder) throws Exception {
+        ResultActions actions = mockMvc.perform(builder);
+        MvcResult result = actions.andReturn();
+        return result.getRequest().isAsyncStarted() ? mockMvc.perform(asyncDispatch(result)) : actions;
+    }
+}
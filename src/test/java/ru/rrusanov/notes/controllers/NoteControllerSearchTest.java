@@ -0,0 +1,155 @@
+package ru.rrusanov.notes.controllers;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import ru.rrusanov.notes.domain.HashTag;
+import ru.rrusanov.notes.store.Hibernate;
+import ru.rrusanov.notes.store.NoteFilter;
+import ru.rrusanov.notes.store.NoteFixture;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Notes found by /note/search for combinations of tag, date and text conditions.
+ * Notes are created at noon UTC of four days in a row, so dates without time
+ * bound them the same way in any time zone within twelve hours of UTC.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class NoteControllerSearchTest {
+
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    /**
+     * 2021-01-01T12:00:00Z.
+     */
+    private static final long FIRST = 1_609_502_400_000L;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private Hibernate store;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private NoteFixture fixture;
+
+    private HashTag x;
+
+    private HashTag y;
+
+    private HashTag z;
+
+    private final List<Long> notes = new ArrayList<>();
+
+    @BeforeEach
+    void init() {
+        fixture = new NoteFixture(store);
+        List<HashTag> tags = fixture.tags("x", "y", "z");
+        x = tags.get(0);
+        y = tags.get(1);
+        z = tags.get(2);
+        notes.add(fixture.note("alpha", new Date(FIRST), x, y).getId());
+        notes.add(fixture.note("beta", new Date(FIRST + DAY), x).getId());
+        notes.add(fixture.note("alpha beta", new Date(FIRST + 2 * DAY), y).getId());
+        notes.add(fixture.note("gamma", new Date(FIRST + 3 * DAY)).getId());
+    }
+
+    @AfterEach
+    void clean() {
+        fixture.clean();
+    }
+
+    @Test
+    void whenAllTagsThenNotesWithEveryTag() throws Exception {
+        assertThat(ids("all=" + x.getId() + "," + y.getId()), contains(notes.get(0)));
+        assertThat(ids("all=" + x.getId()), contains(notes.get(0), notes.get(1)));
+        assertThat(ids("all=" + x.getId() + "," + z.getId()), is(empty()));
+    }
+
+    @Test
+    void whenAnyTagsThenNotesWithOneOfTags() throws Exception {
+        assertThat(ids("any=" + x.getId() + "," + y.getId()), contains(notes.get(0), notes.get(1), notes.get(2)));
+        assertThat(ids("any=" + y.getId() + "," + z.getId()), contains(notes.get(0), notes.get(2)));
+        assertThat(ids("any=" + z.getId()), is(empty()));
+    }
+
+    @Test
+    void whenAllAndAnyTagsThenBothApplied() throws Exception {
+        assertThat(ids("all=" + x.getId() + "&any=" + y.getId() + "," + z.getId()), contains(notes.get(0)));
+    }
+
+    @Test
+    void whenDateBoundsThenFromInclusiveAndToExclusive() throws Exception {
+        String text = "text=" + fixture.marker();
+        assertThat(ids(text + "&from=2021-01-02&to=2021-01-04"), contains(notes.get(1), notes.get(2)));
+        assertThat(ids(text + "&from=2021-01-03"), contains(notes.get(2), notes.get(3)));
+        assertThat(ids(text + "&to=2021-01-02"), contains(notes.get(0)));
+        assertThat(ids(text + "&from=2021-01-02T12:00:00.000Z&to=2021-01-03T12:00:00.000Z"),
+                contains(notes.get(1)));
+        perform(get("/note/search?" + text + "&from=2021-01-04&to=2021-01-02")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void whenTextAndTagsThenBothApplied() throws Exception {
+        assertThat(ids("text=alpha&any=" + x.getId() + "," + y.getId()), contains(notes.get(0), notes.get(2)));
+        assertThat(ids("text=beta&all=" + y.getId()), contains(notes.get(2)));
+        assertThat(ids("text=gamma&any=" + x.getId() + "," + y.getId()), is(empty()));
+        assertThat(ids("text=alpha&any=" + x.getId() + "&from=2021-01-02"), is(empty()));
+    }
+
+    @Test
+    void whenMoreTagsThanMaximumThenBadRequest() throws Exception {
+        StringJoiner ids = new StringJoiner(",");
+        for (long id = 1; id <= NoteFilter.MAX_TAGS + 1; id++) {
+            ids.add(String.valueOf(id));
+        }
+        perform(get("/note/search?all=" + ids)).andExpect(status().isBadRequest());
+        perform(get("/note/search?any=" + ids)).andExpect(status().isBadRequest());
+    }
+
+    /**
+     * @param query Conditions of search.
+     * @return Ids of found notes in order of the only page.
+     */
+    private List<Long> ids(String query) throws Exception {
+        MvcResult result = perform(get("/note/search?view=summary&limit=100&" + query))
+                .andExpect(status().isOk()).andReturn();
+        List<Map<String, Object>> items = mapper.readValue(result.getResponse().getContentAsString(),
+                new TypeReference<List<Map<String, Object>>>() { });
+        List<Long> rsl = new ArrayList<>();
+        for (Map<String, Object> item : items) {
+            rsl.add(((Number) item.get("id")).longValue());
+        }
+        return rsl;
+    }
+
+    private ResultActions perform(RequestBuilder builder) throws Exception {
+        ResultActions actions = mockMvc.perform(builder);
+        MvcResult result = actions.andReturn();
+        return result.getRequest().isAsyncStarted() ? mockMvc.perform(asyncDispatch(result)) : actions;
+    }
+}
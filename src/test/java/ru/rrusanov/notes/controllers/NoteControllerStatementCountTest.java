@@ -0,0 +1,168 @@
+package ru.rrusanov.notes.controllers;
+
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import ru.rrusanov.notes.domain.HashTag;
+import ru.rrusanov.notes.store.Hibernate;
+import ru.rrusanov.notes.store.NoteFixture;
+
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Every list endpoint is called for a small and a large result, both with tags.
+ * Number of prepared statements must stay the same, loading tags per note would
+ * make it grow with the result.
+ */
+@SpringBootTest(properties = "notes.hibernate.statistics=true")
+@AutoConfigureMockMvc
+class NoteControllerStatementCountTest {
+
+    private static final int SMALL = 2;
+
+    private static final int LARGE = 20;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private Hibernate store;
+
+    private NoteFixture fixture;
+
+    private HashTag tag;
+
+    @BeforeEach
+    void init() {
+        fixture = new NoteFixture(store);
+        List<HashTag> tags = fixture.tags("first", "second");
+        tag = tags.get(0);
+        for (int i = 0; i < LARGE; i++) {
+            fixture.note("" + i, day(i), tags.get(0), tags.get(1));
+        }
+    }
+
+    @AfterEach
+    void clean() {
+        fixture.clean();
+    }
+
+    @Test
+    void whenFindAllThenStatementsDoNotDependOnPageSize() throws Exception {
+        assertSameStatements(
+                get("/note/?sort=desc&limit=" + SMALL), SMALL,
+                get("/note/?sort=desc&limit=" + LARGE), LARGE);
+    }
+
+    @Test
+    void whenFindByHashTagThenStatementsDoNotDependOnPageSize() throws Exception {
+        assertSameStatements(
+                get("/note/findByHashTag/" + tag.getId() + "?limit=" + SMALL), SMALL,
+                get("/note/findByHashTag/" + tag.getId() + "?limit=" + LARGE), LARGE);
+    }
+
+    @Test
+    void whenSummaryViewThenStatementsDoNotDependOnPageSize() throws Exception {
+        assertSameStatements(
+                get("/note/findByHashTag/" + tag.getId() + "?view=summary&limit=" + SMALL), SMALL,
+                get("/note/findByHashTag/" + tag.getId() + "?view=summary&limit=" + LARGE), LARGE, "tagIds");
+        assertSameStatements(
+                get("/note/findByText/" + fixture.marker() + "?view=summary&limit=" + SMALL), SMALL,
+                get("/note/findByText/" + fixture.marker() + "?view=summary&limit=" + LARGE), LARGE, "tagIds");
+    }
+
+    @Test
+    void whenFindByDateThenStatementsDoNotDependOnPageSize() throws Exception {
+        String body = "{\"date\":\"2099-12-31T00:00:00.000+00:00\",\"comparisonSign\":\">\"}";
+        assertSameStatements(
+                get("/note/findByDate/?limit=" + SMALL).contentType(MediaType.APPLICATION_JSON).content(body),
+                SMALL,
+                get("/note/findByDate/?limit=" + LARGE).contentType(MediaType.APPLICATION_JSON).content(body),
+                LARGE);
+    }
+
+    @Test
+    void whenFindByTextThenStatementsDoNotDependOnResultSize() throws Exception {
+        assertSameStatements(
+                get("/note/findByText/" + fixture.marker() + "?sort=relevance&limit=" + SMALL), SMALL,
+                get("/note/findByText/" + fixture.marker() + "?sort=relevance&limit=" + LARGE), LARGE);
+        assertSameStatements(
+                get("/note/findByText/" + fixture.marker() + "?sort=asc&limit=" + SMALL), SMALL,
+                get("/note/findByText/" + fixture.marker() + "?sort=asc&limit=" + LARGE), LARGE);
+    }
+
+    @Test
+    void whenExportThenOneStatement() throws Exception {
+        Statistics stats = store.getStatistics();
+        stats.clear();
+        streamed(get("/note/export?since=2100-01-" + (LARGE - SMALL + 1)));
+        long small = stats.getPrepareStatementCount();
+        stats.clear();
+        streamed(get("/note/export?since=2100-01-01"));
+        assertThat(stats.getPrepareStatementCount(), is(small));
+        assertThat(small, is(1L));
+        stats.clear();
+        streamed(get("/note/").accept(MediaType.APPLICATION_NDJSON));
+        assertThat(stats.getPrepareStatementCount(), is(1L));
+    }
+
+    private void assertSameStatements(RequestBuilder small, int smallSize,
+                                      RequestBuilder large, int largeSize) throws Exception {
+        assertSameStatements(small, smallSize, large, largeSize, "hashTag");
+    }
+
+    private void assertSameStatements(RequestBuilder small, int smallSize,
+                                      RequestBuilder large, int largeSize, String tags) throws Exception {
+        Statistics stats = store.getStatistics();
+        stats.clear();
+        async(small)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(smallSize)))
+                .andExpect(jsonPath("$[0]." + tags + ".length()", is(2)));
+        long smallCount = stats.getPrepareStatementCount();
+        stats.clear();
+        async(large)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(largeSize)))
+                .andExpect(jsonPath("$[" + (largeSize - 1) + "]." + tags + ".length()", is(2)));
+        long largeCount = stats.getPrepareStatementCount();
+        assertThat(largeCount, is(smallCount));
+        assertThat(largeCount, lessThanOrEqualTo(2L));
+    }
+
+    private void streamed(RequestBuilder builder) throws Exception {
+        async(builder).andExpect(status().isOk());
+    }
+
+    private ResultActions async(RequestBuilder builder) throws Exception {
+        MvcResult result = mockMvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+
+    private static java.util.Date day(int i) {
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        calendar.clear();
+        calendar.set(2100, Calendar.JANUARY, 1 + i);
+        return calendar.getTime();
+    }
+}
@@ -0,0 +1,109 @@
+package ru.rrusanov.notes.controllers;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import ru.rrusanov.notes.domain.HashTag;
+import ru.rrusanov.notes.domain.Note;
+import ru.rrusanov.notes.store.Hibernate;
+import ru.rrusanov.notes.store.NoteFixture;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tag combinations answered by in-memory tag index, kept up to date by changes made through the store.
+ */
+@SpringBootTest(properties = "notes.tag-index.enabled=true")
+@AutoConfigureMockMvc
+class NoteControllerTagIndexTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private Hibernate store;
+
+    private HashTag red;
+
+    private HashTag blue;
+
+    private final List<Note> notes = new ArrayList<>();
+
+    private NoteFixture fixture;
+
+    @BeforeEach
+    void init() {
+        fixture = new NoteFixture(store);
+        List<HashTag> tags = fixture.tags("red", "blue");
+        red = tags.get(0);
+        blue = tags.get(1);
+        notes.add(fixture.note("", new Date(), red, blue));
+        notes.add(fixture.note("", new Date(), red));
+        notes.add(fixture.note("", new Date(), blue));
+    }
+
+    @AfterEach
+    void clean() {
+        fixture.clean();
+    }
+
+    @Test
+    void whenFindByTagsThenPageOfMatchingNotesWithTotal() throws Exception {
+        perform(get("/note/findByTags?all=" + red.getId() + "&limit=1&view=summary"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(NoteController.TOTAL_COUNT, "2"))
+                .andExpect(header().string(NoteController.NEXT_CURSOR, notes.get(0).getId().toString()))
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$[0].id", is(notes.get(0).getId().intValue())));
+        perform(get("/note/findByTags?all=" + red.getId() + "&limit=1&cursor=" + notes.get(0).getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(NoteController.NEXT_CURSOR))
+                .andExpect(jsonPath("$[0].id", is(notes.get(1).getId().intValue())))
+                .andExpect(jsonPath("$[0].text", is(fixture.marker())));
+        perform(get("/note/findByTags?any=" + red.getId() + "," + blue.getId() + "&none=" + blue.getId()))
+                .andExpect(header().string(NoteController.TOTAL_COUNT, "1"))
+                .andExpect(jsonPath("$[0].id", is(notes.get(1).getId().intValue())));
+    }
+
+    @Test
+    void whenNotesChangedThenIndexFollows() throws Exception {
+        Note changed = Note.of(fixture.marker(), new Date());
+        changed.setId(notes.get(2).getId());
+        changed.setHashTag(Collections.singletonList(red));
+        store.updateNote(changed);
+        store.deleteNote(notes.get(0).getId());
+        store.untagNotes(fixture.filter(), red.getId());
+        store.tagNotes(fixture.filter(), blue.getId());
+        perform(get("/note/countByTag?ids=" + red.getId() + "," + blue.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['" + red.getId() + "']", is(0)))
+                .andExpect(jsonPath("$['" + blue.getId() + "']", is(2)));
+        perform(get("/note/findByTags?all=" + blue.getId()))
+                .andExpect(header().string(NoteController.TOTAL_COUNT, "2"))
+                .andExpect(jsonPath("$[0].id", is(notes.get(1).getId().intValue())))
+                .andExpect(jsonPath("$[1].id", is(notes.get(2).getId().intValue())));
+    }
+
+    private ResultActions perform(RequestBuilder builder) throws Exception {
+        ResultActions actions = mockMvc.perform(builder);
+        MvcResult result = actions.andReturn();
+        return result.getRequest().isAsyncStarted() ? mockMvc.perform(asyncDispatch(result)) : actions;
+    }
+}
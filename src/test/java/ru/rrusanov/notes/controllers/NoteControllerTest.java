@@ -13,6 +13,8 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import ru.rrusanov.notes.domain.Note;
 
+import java.util.concurrent.CompletableFuture;
+
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
@@ -21,11 +23,13 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 @SpringBootTest()
 @AutoConfigureMockMvc
@@ -43,11 +47,13 @@ class NoteControllerTest {
         note.setText("Текст заметки");
         note.setTopic("Название заметки");
         when(noteController.create(any(Note.class)))
-                .thenReturn(new ResponseEntity<>(note, HttpStatus.OK));
-        mockMvc.perform(
+                .thenReturn(CompletableFuture.completedFuture(new ResponseEntity<>(note, HttpStatus.OK)));
+        mockMvc.perform(asyncDispatch(mockMvc.perform(
                 post("/note/")
                         .content(note.getJson())
                         .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn()))
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
@@ -66,11 +72,13 @@ class NoteControllerTest {
         note.setText("Текст заметки отредактированный");
         note.setTopic("Название заметки отредактированное");
         when(noteController.update(any(Note.class)))
-                .thenReturn(new ResponseEntity<Void>(HttpStatus.OK));
-        mockMvc.perform(
+                .thenReturn(CompletableFuture.completedFuture(new ResponseEntity<Void>(HttpStatus.OK)));
+        mockMvc.perform(asyncDispatch(mockMvc.perform(
                 put("/note/")
                         .content(note.getJson())
                         .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn()))
                 .andDo(print())
                 .andExpect(status().isOk());
         verify(noteController, times(1)).update(any(Note.class));
@@ -83,8 +91,10 @@ class NoteControllerTest {
     @Test
     void whenRequestDelete() throws Exception {
         when(noteController.delete(anyLong()))
-                .thenReturn(new ResponseEntity<Void>(HttpStatus.OK));
-        mockMvc.perform(MockMvcRequestBuilders.delete("/note/{id}", 1))
+                .thenReturn(CompletableFuture.completedFuture(new ResponseEntity<Void>(HttpStatus.OK)));
+        mockMvc.perform(asyncDispatch(mockMvc.perform(MockMvcRequestBuilders.delete("/note/{id}", 1))
+                .andExpect(request().asyncStarted())
+                .andReturn()))
                 .andDo(print())
                 .andExpect(status().isOk());
         verify(noteController, times(1)).delete(anyLong());
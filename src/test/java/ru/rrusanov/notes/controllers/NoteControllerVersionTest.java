@@ -0,0 +1,172 @@
+package ru.rrusanov.notes.controllers;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import ru.rrusanov.notes.domain.HashTag;
+import ru.rrusanov.notes.domain.Note;
+import ru.rrusanov.notes.store.Hibernate;
+import ru.rrusanov.notes.store.NoteFixture;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * PUT and PATCH of a note read by client, with current and stale version.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class NoteControllerVersionTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private Hibernate store;
+
+    private Note note;
+
+    private HashTag first;
+
+    private HashTag second;
+
+    private NoteFixture fixture;
+
+    private String text;
+
+    @BeforeEach
+    void init() {
+        fixture = new NoteFixture(store);
+        first = fixture.tags("first").get(0);
+        second = fixture.tags("second").get(0);
+        text = fixture.marker() + " text";
+        note = Note.of(text, new Date());
+        note.setTopic("version test topic");
+        note.setHashTag(Arrays.asList(first));
+        note = store.createModel(note);
+    }
+
+    @AfterEach
+    void clean() {
+        fixture.clean();
+    }
+
+    @Test
+    void whenPutWithCurrentVersionThenUpdated() throws Exception {
+        perform(put("/note/").contentType(MediaType.APPLICATION_JSON).content(
+                "{\"id\":" + note.getId() + ",\"version\":" + note.getVersion()
+                        + ",\"text\":\"" + fixture.marker() + " changed\","
+                        + "\"dateCreate\":\"2020-01-01T00:00:00.000+00:00\","
+                        + "\"hashTag\":[{\"id\":" + second.getId() + "}]}"))
+                .andExpect(status().isOk());
+        Note changed = store.findNoteById(note.getId());
+        assertThat(changed.getText(), is(fixture.marker() + " changed"));
+        assertThat(changed.getVersion(), is(note.getVersion() + 1));
+        assertThat(changed.getHashTag(), containsInAnyOrder(second));
+    }
+
+    @Test
+    void whenPutWithStaleVersionThenConflictAndNotChanged() throws Exception {
+        perform(put("/note/").contentType(MediaType.APPLICATION_JSON).content(
+                "{\"id\":" + note.getId() + ",\"version\":" + (note.getVersion() - 1)
+                        + ",\"text\":\"" + fixture.marker() + " changed\","
+                        + "\"dateCreate\":\"2020-01-01T00:00:00.000+00:00\"}"))
+                .andExpect(status().isConflict());
+        Note unchanged = store.findNoteById(note.getId());
+        assertThat(unchanged.getText(), is(text));
+        assertThat(unchanged.getVersion(), is(note.getVersion()));
+    }
+
+    @Test
+    void whenPutWithoutVersionThenOverwritten() throws Exception {
+        perform(put("/note/").contentType(MediaType.APPLICATION_JSON).content(
+                "{\"id\":" + note.getId()
+                        + ",\"text\":\"" + fixture.marker() + " changed\","
+                        + "\"dateCreate\":\"2020-01-01T00:00:00.000+00:00\"}"))
+                .andExpect(status().isOk());
+        assertThat(store.findNoteById(note.getId()).getText(), is(fixture.marker() + " changed"));
+    }
+
+    @Test
+    void whenPatchThenOnlyPassedFieldsChanged() throws Exception {
+        perform(patch("/note/{id}", note.getId()).contentType(MediaType.APPLICATION_JSON).content(
+                "{\"version\":" + note.getVersion() + ",\"topic\":\"patched topic\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.topic", is("patched topic")))
+                .andExpect(jsonPath("$.text", is(text)))
+                .andExpect(jsonPath("$.version", is((int) (note.getVersion() + 1))));
+        Note changed = store.findNoteById(note.getId());
+        assertThat(changed.getTopic(), is("patched topic"));
+        assertThat(changed.getText(), is(text));
+        assertThat(changed.getDateCreate().getTime(), is(note.getDateCreate().getTime()));
+        assertThat(changed.getHashTag(), containsInAnyOrder(first));
+    }
+
+    @Test
+    void whenPatchTagsThenTagsReplaced() throws Exception {
+        perform(patch("/note/{id}", note.getId()).contentType(MediaType.APPLICATION_JSON).content(
+                "{\"version\":" + note.getVersion() + ",\"hashTag\":[{\"id\":" + first.getId()
+                        + "},{\"title\":\"" + second.getTitle() + "\"}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hashTag.length()", is(2)));
+        Note changed = store.findNoteById(note.getId());
+        assertThat(changed.getHashTag(), containsInAnyOrder(first, second));
+        assertThat(changed.getText(), is(text));
+    }
+
+    @Test
+    void whenPatchWithStaleVersionThenConflictAndNotChanged() throws Exception {
+        perform(patch("/note/{id}", note.getId()).contentType(MediaType.APPLICATION_JSON).content(
+                "{\"version\":" + (note.getVersion() + 1) + ",\"topic\":\"patched topic\"}"))
+                .andExpect(status().isConflict());
+        assertThat(store.findNoteById(note.getId()).getTopic(), is("version test topic"));
+    }
+
+    @Test
+    void whenPatchWithoutVersionThenBadRequest() throws Exception {
+        perform(patch("/note/{id}", note.getId()).contentType(MediaType.APPLICATION_JSON).content(
+                "{\"topic\":\"patched topic\"}"))
+                .andExpect(status().isBadRequest());
+        perform(patch("/note/{id}", note.getId()).contentType(MediaType.APPLICATION_JSON).content(
+                "{\"version\":" + note.getVersion() + ",\"text\":null}"))
+                .andExpect(status().isBadRequest());
+        assertThat(store.findNoteById(note.getId()).getVersion(), is(note.getVersion()));
+    }
+
+    @Test
+    void whenPatchUnknownNoteThenNotFound() throws Exception {
+        perform(patch("/note/{id}", -1).contentType(MediaType.APPLICATION_JSON).content(
+                "{\"version\":0,\"topic\":\"patched topic\"}"))
+                .andExpect(status().isNotFound());
+    }
+
+    /**
+     * The method perform request and dispatch its result when the handler returned a future.
+     * Requests rejected before the store call are answered synchronously.
+     * @param builder Request.
+     * @return Result of the final dispatch.
+     * @throws Exception If request fails.
+     */
+    private ResultActions perform(RequestBuilder builder) throws Exception {
+        ResultActions actions = mockMvc.perform(builder);
+        MvcResult result = actions.andReturn();
+        return result.getRequest().isAsyncStarted() ? mockMvc.perform(asyncDispatch(result)) : actions;
+    }
+}
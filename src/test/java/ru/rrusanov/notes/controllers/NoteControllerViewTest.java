@@ -0,0 +1,105 @@
+package ru.rrusanov.notes.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+import ru.rrusanov.notes.domain.HashTag;
+import ru.rrusanov.notes.domain.Note;
+import ru.rrusanov.notes.store.Hibernate;
+import ru.rrusanov.notes.store.NoteFixture;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Fields of notes in response bodies: summaries in lists, full note with text and
+ * tag titles by id.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class NoteControllerViewTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private Hibernate store;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    private NoteFixture fixture;
+
+    private List<HashTag> tags;
+
+    private Note note;
+
+    @BeforeEach
+    void init() {
+        fixture = new NoteFixture(store);
+        tags = fixture.tags("first", "second");
+        note = Note.of(fixture.marker() + " " + String.join("", Collections.nCopies(60, "long text ")),
+                new Date(1_609_502_400_000L));
+        note.setTopic("topic " + fixture.marker());
+        note.setHashTag(tags);
+        store.createModel(note);
+    }
+
+    @AfterEach
+    void clean() {
+        fixture.clean();
+    }
+
+    @Test
+    void whenSummaryViewThenSummaryFieldsOnly() throws Exception {
+        perform(get("/note/findByHashTag/" + tags.get(0).getId() + "?view=summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(note.getId()))
+                .andExpect(jsonPath("$[0].topic").value(note.getTopic()))
+                .andExpect(jsonPath("$[0].dateCreate").value(mapper.convertValue(note.getDateCreate(), Object.class)))
+                .andExpect(jsonPath("$[0].tagIds", containsInAnyOrder(
+                        tags.get(0).getId().intValue(), tags.get(1).getId().intValue())))
+                .andExpect(jsonPath("$[0].snippet").value(note.getText().substring(0, Hibernate.SNIPPET_LENGTH)))
+                .andExpect(jsonPath("$[0].text").doesNotExist())
+                .andExpect(jsonPath("$[0].hashTag").doesNotExist());
+    }
+
+    @Test
+    void whenFoundByIdThenFullTextAndTagTitles() throws Exception {
+        perform(get("/note/" + note.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(note.getId()))
+                .andExpect(jsonPath("$.text").value(note.getText()))
+                .andExpect(jsonPath("$.topic").value(note.getTopic()))
+                .andExpect(jsonPath("$.hashTag[*].title", containsInAnyOrder(
+                        fixture.title("first"), fixture.title("second"))));
+    }
+
+    @Test
+    void whenUnknownIdThenNotFound() throws Exception {
+        perform(get("/note/" + Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
+    private ResultActions perform(RequestBuilder builder) throws Exception {
+        ResultActions actions = mockMvc.perform(builder);
+        MvcResult result = actions.andReturn();
+        return result.getRequest().isAsyncStarted() ? mockMvc.perform(asyncDispatch(result)) : actions;
+    }
+}
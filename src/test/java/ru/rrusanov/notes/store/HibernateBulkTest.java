@@ -0,0 +1,169 @@
+package ru.rrusanov.notes.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.rrusanov.notes.domain.HashTag;
+import ru.rrusanov.notes.domain.Note;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Set-based delete and retag statements run against DB on notes of the fixture,
+ * links and versions are checked by plain JDBC.
+ */
+@SpringBootTest
+class HibernateBulkTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    private Hibernate store;
+
+    private NoteFixture fixture;
+
+    private HashTag first;
+
+    private HashTag second;
+
+    private List<Note> notes;
+
+    private final List<Note> deleted = new ArrayList<>();
+
+    private final List<List<Long>> retagged = new ArrayList<>();
+
+    @BeforeEach
+    void init() {
+        store = new Hibernate(dataSource, new TagCache(100));
+        store.addListener(new StoreListener() {
+            @Override
+            public void noteDeleted(Note note) {
+                deleted.add(note);
+            }
+
+            @Override
+            public void notesRetagged(Long tagId, Collection<Long> noteIds, boolean added) {
+                retagged.add(new ArrayList<>(noteIds));
+            }
+        });
+        fixture = new NoteFixture(store);
+        List<HashTag> tags = fixture.tags("first", "second");
+        first = tags.get(0);
+        second = tags.get(1);
+        notes = new ArrayList<>();
+        notes.add(fixture.note("0", new Date(), first, second));
+        notes.add(fixture.note("1", new Date(), first));
+        notes.add(fixture.note("2", new Date(), first));
+    }
+
+    @AfterEach
+    void clean() {
+        fixture.clean();
+        store.close();
+    }
+
+    @Test
+    void whenDeleteNotesThenCountReturnedAndLinksRemoved() throws Exception {
+        NoteFilter filter = fixture.filter()
+                .withAnyTags(Collections.singletonList(second.getId()));
+        assertThat(store.deleteNotes(filter, 10), is(1));
+        assertThat(store.findNoteById(notes.get(0).getId()), is(nullValue()));
+        assertThat(links(notes.get(0).getId()), is(empty()));
+        assertThat(links(notes.get(1).getId()), containsInAnyOrder(first.getId()));
+        assertThat(deleted.size(), is(1));
+        assertThat(deleted.get(0).getId(), is(notes.get(0).getId()));
+        assertThat(deleted.get(0).getHashTag(), containsInAnyOrder(first, second));
+    }
+
+    @Test
+    void whenDeleteNotesWithoutConditionThenRefused() {
+        assertThrows(InvalidRequestException.class, () -> store.deleteNotes(NoteFilter.none(), 10));
+    }
+
+    @Test
+    void whenDeleteNotesMatchMoreThanMaxThenNothingDeleted() throws Exception {
+        NoteFilter filter = fixture.filter();
+        assertThrows(InvalidRequestException.class, () -> store.deleteNotes(filter, 2));
+        for (Note note : notes) {
+            assertThat(links(note.getId()).isEmpty(), is(false));
+        }
+        assertThat(deleted, is(empty()));
+        assertThat(store.deleteNotes(filter, 3), is(3));
+    }
+
+    @Test
+    void whenTagNotesThenNotesHavingTagSkippedAndVersionOfOthersIncremented() throws Exception {
+        NoteFilter filter = fixture.filter();
+        assertThat(store.tagNotes(filter, second.getId()), is(2));
+        for (Note note : notes) {
+            assertThat(links(note.getId()), containsInAnyOrder(first.getId(), second.getId()));
+        }
+        assertThat(version(notes.get(0).getId()), is(notes.get(0).getVersion()));
+        assertThat(version(notes.get(1).getId()), is(notes.get(1).getVersion() + 1));
+        assertThat(version(notes.get(2).getId()), is(notes.get(2).getVersion() + 1));
+        assertThat(retagged.get(0), containsInAnyOrder(notes.get(1).getId(), notes.get(2).getId()));
+        assertThat(store.tagNotes(filter, second.getId()), is(0));
+    }
+
+    @Test
+    void whenUntagNotesThenOnlyNotesHavingTagChanged() throws Exception {
+        NoteFilter filter = fixture.filter();
+        assertThat(store.untagNotes(filter, second.getId()), is(1));
+        for (Note note : notes) {
+            assertThat(links(note.getId()), containsInAnyOrder(first.getId()));
+        }
+        assertThat(version(notes.get(0).getId()), is(notes.get(0).getVersion() + 1));
+        assertThat(version(notes.get(1).getId()), is(notes.get(1).getVersion()));
+        assertThat(retagged.get(0), containsInAnyOrder(notes.get(0).getId()));
+    }
+
+    @Test
+    void whenRetagByUnknownTagThenRefused() {
+        NoteFilter filter = fixture.filter();
+        assertThrows(InvalidRequestException.class, () -> store.tagNotes(filter, -1L));
+        assertThrows(InvalidRequestException.class, () -> store.untagNotes(filter, null));
+    }
+
+    private List<Long> links(Long noteId) throws Exception {
+        List<Long> rsl = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement(
+                     "select hashtag_id from note_hashtag where note_id = ?")) {
+            ps.setLong(1, noteId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rsl.add(rs.getLong(1));
+                }
+            }
+        }
+        return rsl;
+    }
+
+    private Long version(Long noteId) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement("select version from note where id = ?")) {
+            ps.setLong(1, noteId);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package ru.rrusanov.notes.store;
+
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.hibernate.StaleObjectStateException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.rrusanov.notes.domain.HashTag;
+import ru.rrusanov.notes.domain.Note;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Changes of a persisted note: statements written for changed tags and the version check.
+ */
+@SpringBootTest
+class HibernateChangeNoteTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final List<QueryInfo> queries = new CopyOnWriteArrayList<>();
+
+    private Hibernate store;
+
+    private List<HashTag> tags;
+
+    private NoteFixture fixture;
+
+    private Note note;
+
+    @BeforeEach
+    void init() {
+        store = new Hibernate(
+                ProxyDataSourceBuilder.create(dataSource)
+                        .afterQuery((exec, infos) -> queries.addAll(infos))
+                        .build(),
+                new TagCache(100)
+        );
+        fixture = new NoteFixture(store);
+        tags = fixture.tags("a", "b", "c");
+        note = fixture.note("", new Date(), tags.get(0), tags.get(1));
+    }
+
+    @AfterEach
+    void clean() {
+        fixture.clean();
+        store.close();
+    }
+
+    @Test
+    void whenTagsReplacedThenOnlyChangedLinksWritten() {
+        Note changed = Note.of(note.getText(), note.getDateCreate());
+        changed.setId(note.getId());
+        changed.setHashTag(Arrays.asList(HashTag.of(tags.get(1).getId(), null), tags.get(2)));
+        queries.clear();
+        store.updateNote(changed);
+        assertThat(statements("delete from note_hashtag"), is(1));
+        assertThat(statements("delete from note_hashtag where note_id=? and hashtag_id=?"), is(1));
+        assertThat(statements("insert into note_hashtag"), is(1));
+        assertThat(store.findNoteById(note.getId()).getHashTag(), containsInAnyOrder(tags.get(1), tags.get(2)));
+    }
+
+    @Test
+    void whenSameTagsPassedThenLinksAndVersionKept() {
+        Note changed = Note.of(note.getText(), note.getDateCreate());
+        changed.setId(note.getId());
+        changed.setHashTag(Arrays.asList(tags.get(1), tags.get(0)));
+        queries.clear();
+        store.updateNote(changed);
+        assertThat(statements("delete from note_hashtag"), is(0));
+        assertThat(statements("insert into note_hashtag"), is(0));
+        assertThat(statements("update note"), is(0));
+        assertThat(store.findNoteById(note.getId()).getVersion(), is(note.getVersion()));
+    }
+
+    @Test
+    void whenUpdateWithoutTextAndDateThenStoredOnesKept() {
+        Note changed = Note.of(null, null);
+        changed.setId(note.getId());
+        changed.setTopic("changed");
+        store.updateNote(changed);
+        Note read = store.findNoteById(note.getId());
+        assertThat(read.getTopic(), is("changed"));
+        assertThat(read.getText(), is(note.getText()));
+        assertThat(read.getDateCreate().getTime(), is(note.getDateCreate().getTime()));
+    }
+
+    @Test
+    void whenChangeNoteWithStaleVersionThenRefused() {
+        assertThrows(StaleObjectStateException.class,
+                () -> store.changeNote(note.getId(), note.getVersion() + 1, managed -> managed.setTopic("stale")));
+        Note changed = store.changeNote(note.getId(), note.getVersion(), managed -> managed.setTopic("current"));
+        assertThat(changed.getVersion(), is(note.getVersion() + 1));
+        assertThat(store.findNoteById(note.getId()).getTopic(), is("current"));
+    }
+
+    /**
+     * @param prefix Beginning of statement.
+     * @return Number of executed rows of statements starting with prefix, batched ones included.
+     */
+    private int statements(String prefix) {
+        int rsl = 0;
+        for (QueryInfo info : queries) {
+            String sql = info.getQuery().replaceAll("(?s)/\\*.*?\\*/", "").replaceAll("\\s+", " ").trim();
+            if (sql.startsWith(prefix)) {
+                rsl += Math.max(1, info.getParametersList().size());
+            }
+        }
+        return rsl;
+    }
+}
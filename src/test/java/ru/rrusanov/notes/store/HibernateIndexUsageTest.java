@@ -0,0 +1,154 @@
+package ru.rrusanov.notes.store;
+
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.rrusanov.notes.domain.HashTag;
+import ru.rrusanov.notes.domain.Note;
+import ru.rrusanov.notes.domain.jsonmapper.NoteSummary;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+/**
+ * Every select issued by the store queries is explained with sequential scans
+ * disabled, so a plan still containing Seq Scan means there is no usable index.
+ */
+@SpringBootTest
+class HibernateIndexUsageTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final List<QueryInfo> queries = new CopyOnWriteArrayList<>();
+
+    private Hibernate store;
+
+    private NoteFixture fixture;
+
+    private Note note;
+
+    @BeforeEach
+    void init() {
+        store = new Hibernate(
+                ProxyDataSourceBuilder.create(dataSource)
+                        .afterQuery((exec, infos) -> queries.addAll(infos))
+                        .build(),
+                new TagCache(100)
+        );
+        fixture = new NoteFixture(store);
+        HashTag tag = fixture.tags("index").get(0);
+        note = fixture.note("text", new Date(), tag);
+    }
+
+    @AfterEach
+    void clean() {
+        fixture.clean();
+        store.close();
+    }
+
+    @Test
+    void whenFindAllNotesThenIndexScan() throws Exception {
+        assertIndexScans(() -> store.findAllNotes(Keyset.first(10, "asc"), Note.class));
+        assertIndexScans(() -> store.findAllNotes(Keyset.first(10, "desc").after(note), Note.class));
+    }
+
+    @Test
+    void whenFindNotesByDateThenIndexScan() throws Exception {
+        Keyset next = Keyset.first(10, "asc").after(note);
+        assertIndexScans(() -> store.findNotesGreaterDate(new Date(0), Keyset.first(10, "asc"), Note.class));
+        assertIndexScans(() -> store.findNotesGreaterDate(new Date(0), next, Note.class));
+        assertIndexScans(() -> store.findNotesLessDate(new Date(), Keyset.first(10, "desc"), Note.class));
+        assertIndexScans(() -> store.findNotesEqualDate(note.getDateCreate(), next, Note.class));
+    }
+
+    @Test
+    void whenFindNotesByHashTagIdThenIndexScan() throws Exception {
+        Long tagId = note.getHashTag().iterator().next().getId();
+        assertIndexScans(() -> store.findNotesByHashTagId(tagId, Keyset.first(10, "asc"), Note.class));
+        assertIndexScans(() -> store.findNotesByHashTagId(tagId, Keyset.first(10, "asc").after(note), Note.class));
+        assertIndexScans(() -> store.findNotesByHashTagId(tagId, Keyset.first(10, "asc"), NoteSummary.class));
+    }
+
+    @Test
+    void whenFindNotesWithTextContainThenIndexScan() throws Exception {
+        assertIndexScans(() -> store.findNotesWithTextContain(fixture.marker(), Keyset.first(10, "asc"), Note.class));
+        assertIndexScans(() -> store.findNotesWithTextContainByRelevance(fixture.marker(), 10, Note.class));
+    }
+
+    @Test
+    void whenFindNotesByFilterThenIndexScan() throws Exception {
+        List<Long> tags = Collections.singletonList(note.getHashTag().iterator().next().getId());
+        assertIndexScans(() -> store.findNotes(NoteFilter.none().from(new Date(0)).withAllTags(tags),
+                Keyset.first(10, "asc"), Note.class));
+        assertIndexScans(() -> store.findNotes(NoteFilter.none().withAnyTags(tags).containing(fixture.marker()),
+                Keyset.first(10, "desc").after(note), NoteSummary.class));
+    }
+
+    @Test
+    void whenFindNotesByIdsThenIndexScan() throws Exception {
+        assertIndexScans(() -> store.findNotesByIds(Collections.singletonList(note.getId()), Note.class));
+        assertIndexScans(() -> store.findNotesByIds(Collections.singletonList(note.getId()), NoteSummary.class));
+    }
+
+    private void assertIndexScans(Runnable query) throws Exception {
+        queries.clear();
+        query.run();
+        List<QueryInfo> selects = new ArrayList<>();
+        for (QueryInfo info : queries) {
+            String sql = info.getQuery().replaceAll("(?s)/\\*.*?\\*/", "").trim().toLowerCase();
+            if (sql.startsWith("select")) {
+                selects.add(info);
+            }
+        }
+        assertThat(selects, is(not(empty())));
+        try (Connection connection = dataSource.getConnection();
+             Statement settings = connection.createStatement()) {
+            settings.execute("set enable_seqscan = off");
+            try {
+                for (QueryInfo select : selects) {
+                    String plan = explain(connection, select);
+                    assertThat(select.getQuery() + "\n" + plan, plan, not(containsString("Seq Scan")));
+                }
+            } finally {
+                settings.execute("reset enable_seqscan");
+            }
+        }
+    }
+
+    private static String explain(Connection connection, QueryInfo select) throws Exception {
+        try (PreparedStatement ps = connection.prepareStatement("explain " + select.getQuery())) {
+            if (!select.getParametersList().isEmpty()) {
+                for (ParameterSetOperation operation : select.getParametersList().get(0)) {
+                    operation.getMethod().invoke(ps, operation.getArgs());
+                }
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+            }
+            return plan.toString();
+        }
+    }
+}
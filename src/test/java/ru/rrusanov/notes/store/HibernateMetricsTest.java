@@ -0,0 +1,102 @@
+package ru.rrusanov.notes.store;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.StaleObjectStateException;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.rrusanov.notes.domain.Note;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Meters of store operations and of session factory statistics bound from a store with statistics enabled.
+ */
+@SpringBootTest
+class HibernateMetricsTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private Hibernate store;
+
+    private NoteFixture fixture;
+
+    @BeforeEach
+    void init() {
+        store = new Hibernate(dataSource, new TagCache(100),
+                Collections.singletonMap(AvailableSettings.GENERATE_STATISTICS, true));
+        store.bindTo(registry);
+        fixture = new NoteFixture(store);
+    }
+
+    @AfterEach
+    void clean() {
+        fixture.clean();
+        store.close();
+    }
+
+    @Test
+    void whenStoreCalledThenOperationAndTransactionRecorded() {
+        Note note = fixture.note("", new Date());
+        store.findNoteById(note.getId());
+        assertThrows(StaleObjectStateException.class,
+                () -> store.changeNote(note.getId(), note.getVersion() + 1, managed -> managed.setTopic("stale")));
+        assertThat(count("notes.store.operation", "createModel", "outcome", "success"), is(1L));
+        assertThat(count("notes.store.operation", "changeNote", "outcome", "error"), is(1L));
+        assertThat(count("notes.store.transaction", "createModel", "result", "commit"), is(1L));
+        assertThat(count("notes.store.transaction", "changeNote", "result", "rollback"), is(1L));
+        assertThat(registry.get("notes.store.connection.acquire").tag("operation", "findNoteById").timer().count(),
+                is(1L));
+    }
+
+    @Test
+    void whenEndpointInMdcThenOperationTaggedByIt() {
+        MDC.put(StoreMetrics.ENDPOINT, "GET /note/{id}");
+        try {
+            store.findNoteById(-1L);
+        } finally {
+            MDC.remove(StoreMetrics.ENDPOINT);
+        }
+        store.findNoteById(-1L);
+        assertThat(registry.get("notes.store.operation").tags("operation", "findNoteById",
+                "endpoint", "GET /note/{id}", "outcome", "success").timer().count(), is(1L));
+        assertThat(registry.get("notes.store.operation")
+                .tags("operation", "findNoteById", "endpoint", "none", "outcome", "success").timer().count(), is(1L));
+    }
+
+    @Test
+    void whenQueryExecutedThenStatisticsMetersNotTaggedByQuery() {
+        fixture.note("", new Date());
+        fixture.note("", new Date());
+        Page<Note> page = store.findNotes(fixture.filter(), Keyset.first(10, "asc"), Note.class);
+        assertThat(page.getItems().size(), is(2));
+        assertThat(registry.get("notes.store.rows").tag("operation", "findNotes").summary().totalAmount(), is(2.0));
+        assertThat(registry.get("hibernate.entities.inserts").functionCounter().count(), is(2.0));
+        assertThat(registry.get("hibernate.transactions").tag("result", "success").functionCounter().count(),
+                greaterThan(2.0));
+        assertThat(registry.get("hibernate.query.executions").functionCounter().count(), greaterThan(0.0));
+        for (Meter meter : registry.getMeters()) {
+            assertThat(meter.getId().toString(), meter.getId().getTag("query"), is(nullValue()));
+        }
+    }
+
+    private long count(String name, String operation, String tag, String value) {
+        return registry.get(name).tags("operation", operation, tag, value).timer().count();
+    }
+}
@@ -0,0 +1,105 @@
+package ru.rrusanov.notes.store;
+
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.rrusanov.notes.domain.HashTag;
+import ru.rrusanov.notes.domain.Note;
+
+import javax.sql.DataSource;
+import java.util.Date;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * The store is built with second-level and query cache enabled. A note is read once so it
+ * is cached, then changed through the store, the next read must see the change.
+ */
+@SpringBootTest
+class HibernateSecondLevelCacheTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    private Hibernate store;
+
+    private NoteFixture fixture;
+
+    private Note note;
+
+    @BeforeEach
+    void init() {
+        store = new Hibernate(dataSource, new TagCache(100), Hibernate.secondLevelCache("ehcache.xml"));
+        fixture = new NoteFixture(store);
+        note = fixture.note("", new Date());
+        assertCached(note.getId());
+    }
+
+    @AfterEach
+    void clean() {
+        fixture.clean();
+        store.close();
+    }
+
+    @Test
+    void whenUpdateNoteThenNextReadSeesChange() {
+        Note changed = Note.of(fixture.marker() + " changed", note.getDateCreate());
+        changed.setId(note.getId());
+        changed.setVersion(note.getVersion());
+        store.updateNote(changed);
+        Note read = store.findNoteById(note.getId());
+        assertThat(read.getText(), is(fixture.marker() + " changed"));
+        assertThat(read.getVersion(), is(note.getVersion() + 1));
+    }
+
+    @Test
+    void whenDeleteNoteThenNextReadMisses() {
+        store.deleteNote(note.getId());
+        assertThat(store.findNoteById(note.getId()), is(nullValue()));
+    }
+
+    @Test
+    void whenBulkDeleteThenCachedNoteAndPageEvicted() {
+        NoteFilter filter = fixture.filter();
+        assertThat(store.findNotes(filter, Keyset.first(10, "asc"), Note.class).getItems(), is(not(empty())));
+        assertThat(store.deleteNotes(filter, 1), is(1));
+        assertThat(store.findNoteById(note.getId()), is(nullValue()));
+        assertThat(store.findNotes(filter, Keyset.first(10, "asc"), Note.class).getItems(), is(empty()));
+    }
+
+    @Test
+    void whenBulkTagAndUntagThenCachedNoteAndTagsEvicted() {
+        HashTag tag = fixture.tags("cache").get(0);
+        NoteFilter filter = fixture.filter();
+        assertThat(store.tagNotes(filter, tag.getId()), is(1));
+        Note tagged = store.findNoteById(note.getId());
+        assertThat(tagged.getHashTag(), contains(tag));
+        assertThat(tagged.getVersion(), is(note.getVersion() + 1));
+        assertCached(note.getId());
+        assertThat(store.untagNotes(filter, tag.getId()), is(1));
+        Note untagged = store.findNoteById(note.getId());
+        assertThat(untagged.getHashTag(), is(empty()));
+        assertThat(untagged.getVersion(), is(note.getVersion() + 2));
+    }
+
+    /**
+     * The method read the note twice and check the second read is a second-level cache hit.
+     * @param id Note id.
+     */
+    private void assertCached(Long id) {
+        Statistics stats = store.getStatistics();
+        store.findNoteById(id);
+        long hits = stats.getSecondLevelCacheHitCount();
+        store.findNoteById(id);
+        assertThat(stats.getSecondLevelCacheHitCount(), is(greaterThan(hits)));
+    }
+}
@@ -0,0 +1,91 @@
+package ru.rrusanov.notes.store;
+
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.rrusanov.notes.domain.HashTag;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tags persisted or read by the store are put to its tag cache after commit,
+ * later lookups of them do not reach DB.
+ */
+@SpringBootTest
+class HibernateTagCacheTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final List<QueryInfo> queries = new CopyOnWriteArrayList<>();
+
+    private final TagCache cache = new TagCache(100);
+
+    private Hibernate store;
+
+    private NoteFixture fixture;
+
+    @BeforeEach
+    void init() {
+        store = new Hibernate(
+                ProxyDataSourceBuilder.create(dataSource)
+                        .afterQuery((exec, infos) -> queries.addAll(infos))
+                        .build(),
+                cache
+        );
+        fixture = new NoteFixture(store);
+    }
+
+    @AfterEach
+    void clean() {
+        store.close();
+    }
+
+    @Test
+    void whenTagsResolvedAgainThenNoStatement() {
+        List<HashTag> tags = fixture.tags("a", "b");
+        queries.clear();
+        List<HashTag> byTitle = fixture.tags("b", "a");
+        List<HashTag> byId = store.resolveTags(Arrays.asList(
+                HashTag.of(tags.get(0).getId(), null), HashTag.of(tags.get(1).getId(), null)));
+        assertThat(queries, is(empty()));
+        assertThat(byTitle, contains(tags.get(1), tags.get(0)));
+        assertThat(byId, contains(tags.get(0), tags.get(1)));
+        assertThat(byId.get(1).getTitle(), is(fixture.title("b")));
+    }
+
+    @Test
+    void whenTagUpsertedThenCachedByIdAndTitle() {
+        HashTag tag = fixture.tags("upserted").get(0);
+        assertThat(cache.findById(tag.getId()).getTitle(), is(fixture.title("upserted")));
+        assertThat(cache.findByTitle(fixture.title("upserted")).getId(), is(tag.getId()));
+    }
+
+    @Test
+    void whenTagCreatedThenCachedAfterCommitOnly() {
+        HashTag created = store.createModel(HashTag.of(null, fixture.title("created")));
+        assertThat(cache.findById(created.getId()).getTitle(), is(fixture.title("created")));
+        assertThat(cache.findByTitle(fixture.title("created")).getId(), is(created.getId()));
+        HashTag[] rolledBack = new HashTag[1];
+        assertThrows(IllegalStateException.class, () -> store.unitOfWork(() -> {
+            rolledBack[0] = store.createModel(HashTag.of(null, fixture.title("rolled back")));
+            throw new IllegalStateException("rollback");
+        }));
+        assertThat(cache.findById(rolledBack[0].getId()), is(nullValue()));
+        assertThat(cache.findByTitle(fixture.title("rolled back")), is(nullValue()));
+    }
+}
@@ -0,0 +1,155 @@
+package ru.rrusanov.notes.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.rrusanov.notes.domain.HashTag;
+
+import javax.sql.DataSource;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tags are unique by title: concurrent inserts of the same new title end with one row,
+ * and the migration adding the unique index moves links of duplicates to the kept tag.
+ */
+@SpringBootTest
+class HibernateTagUpsertTest {
+
+    private static final String TITLE = "tag-upsert-test-";
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final List<Hibernate> stores = new ArrayList<>();
+
+    @BeforeEach
+    void init() {
+        stores.add(new Hibernate(dataSource, new TagCache(100)));
+        stores.add(new Hibernate(dataSource, new TagCache(100)));
+    }
+
+    @AfterEach
+    void clean() throws SQLException {
+        stores.forEach(Hibernate::close);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement delete = connection.prepareStatement("delete from hashtag where title like ?")) {
+            delete.setString(1, TITLE + "%");
+            delete.executeUpdate();
+        }
+    }
+
+    @Test
+    void whenSameNewTitleResolvedConcurrentlyThenOneRow() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(stores.size());
+        try {
+            for (int round = 0; round < 10; round++) {
+                String title = TITLE + round;
+                CyclicBarrier start = new CyclicBarrier(stores.size());
+                List<Future<List<HashTag>>> resolved = new ArrayList<>();
+                for (Hibernate store : stores) {
+                    resolved.add(pool.submit(() -> {
+                        start.await(10, TimeUnit.SECONDS);
+                        return store.resolveTags(Collections.singletonList(HashTag.of(null, title)));
+                    }));
+                }
+                List<Long> ids = new ArrayList<>();
+                for (Future<List<HashTag>> tags : resolved) {
+                    ids.add(tags.get(10, TimeUnit.SECONDS).get(0).getId());
+                }
+                List<Long> rows = this.idsWithTitle(title);
+                assertThat(rows.size(), is(1));
+                assertThat(ids, contains(rows.get(0), rows.get(0)));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void whenDuplicatedTitlesMigratedThenLinksMovedToFirstTag() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement st = connection.createStatement()) {
+                st.execute("create temporary table hashtag (id bigint primary key, title varchar(255))");
+                st.execute("create temporary table note_hashtag (note_id bigint not null, hashtag_id bigint not null)");
+                st.execute("insert into hashtag values (1, 'java'), (2, 'sql'), (3, 'java'), (4, null), (5, null),"
+                        + " (6, 'java')");
+                st.execute("insert into note_hashtag values (10, 1), (11, 3), (11, 2), (12, 6), (13, 4), (14, 5)");
+                for (String sql : this.script("db/changelog/hashtag_title_unique.sql")) {
+                    st.execute(sql);
+                }
+                assertThat(this.rows(st, "select id from hashtag order by id"), contains(1L, 2L, 4L, 5L));
+                assertThat(this.rows(st, "select hashtag_id from note_hashtag order by note_id, hashtag_id"),
+                        contains(1L, 1L, 2L, 1L, 4L, 5L));
+                st.execute("insert into hashtag values (7, 'kotlin') on conflict (title) do nothing");
+                st.execute("insert into hashtag values (8, 'kotlin') on conflict (title) do nothing");
+                assertThat(this.rows(st, "select id from hashtag where title = 'kotlin'"), contains(7L));
+            } finally {
+                connection.rollback();
+            }
+        }
+    }
+
+    private List<Long> idsWithTitle(String title) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement select = connection.prepareStatement("select id from hashtag where title = ?")) {
+            select.setString(1, title);
+            List<Long> rsl = new ArrayList<>();
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    rsl.add(rs.getLong(1));
+                }
+            }
+            return rsl;
+        }
+    }
+
+    private List<Long> rows(Statement st, String sql) throws SQLException {
+        List<Long> rsl = new ArrayList<>();
+        try (ResultSet rs = st.executeQuery(sql)) {
+            while (rs.next()) {
+                rsl.add(rs.getLong(1));
+            }
+        }
+        return rsl;
+    }
+
+    /**
+     * @param path Changelog file on classpath.
+     * @return Statements of the file without comments.
+     */
+    private List<String> script(String path) {
+        InputStream in = this.getClass().getClassLoader().getResourceAsStream(path);
+        List<String> rsl = new ArrayList<>();
+        try (Scanner scanner = new Scanner(in, StandardCharsets.UTF_8.name())) {
+            String text = scanner.useDelimiter("\\A").next().replaceAll("(?m)^--.*$", "");
+            for (String sql : text.split(";")) {
+                if (!sql.trim().isEmpty()) {
+                    rsl.add(sql.trim());
+                }
+            }
+        }
+        return rsl;
+    }
+}
@@ -0,0 +1,121 @@
+package ru.rrusanov.notes.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.rrusanov.notes.domain.Note;
+import ru.rrusanov.notes.domain.jsonmapper.NoteSummary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Substring search in DB: relevance order of found notes, check of notes by ids
+ * and special characters of like patterns in the searched substring.
+ */
+@SpringBootTest
+class HibernateTextSearchTest {
+
+    @Autowired
+    private Hibernate store;
+
+    private NoteFixture fixture;
+
+    @BeforeEach
+    void init() {
+        fixture = new NoteFixture(store);
+    }
+
+    @AfterEach
+    void clean() {
+        fixture.clean();
+    }
+
+    @Test
+    void whenFoundByRelevanceThenMostSimilarFirst() {
+        Note longTail = fixture.note("with a much longer tail of other words", new Date());
+        Note exact = fixture.note("", new Date());
+        Note shortTail = fixture.note("tail", new Date());
+        Note topic = Note.of(fixture.marker() + " with a much longer tail of other words", new Date());
+        topic.setTopic(fixture.marker());
+        store.createModel(topic);
+        List<Long> expected = new ArrayList<>();
+        expected.add(exact.getId());
+        expected.add(topic.getId());
+        expected.add(shortTail.getId());
+        expected.add(longTail.getId());
+        List<Long> full = new ArrayList<>();
+        for (Note note : store.findNotesWithTextContainByRelevance(fixture.marker(), 10, Note.class)) {
+            full.add(note.getId());
+        }
+        List<Long> summaries = new ArrayList<>();
+        for (NoteSummary note : store.findNotesWithTextContainByRelevance(fixture.marker(), 10, NoteSummary.class)) {
+            summaries.add(note.getId());
+        }
+        assertThat(full, contains(expected.toArray()));
+        assertThat(summaries, contains(expected.toArray()));
+        List<Long> first = new ArrayList<>();
+        for (Note note : store.findNotesWithTextContainByRelevance(fixture.marker(), 2, Note.class)) {
+            first.add(note.getId());
+        }
+        assertThat(first, contains(exact.getId(), topic.getId()));
+    }
+
+    @Test
+    void whenPercentOrUnderscoreSearchedThenMatchedLiterally() {
+        Note percent = fixture.note("100% sure", new Date());
+        fixture.note("1000 sure", new Date());
+        Note underscore = fixture.note("a_c", new Date());
+        fixture.note("abc", new Date());
+        Note backslash = fixture.note("a\\c", new Date());
+        assertFound(fixture.marker() + " 100%", percent);
+        assertFound(fixture.marker() + " a_c", underscore);
+        assertFound(fixture.marker() + " a\\c", backslash);
+    }
+
+    @Test
+    void whenCheckedByIdsThenShortestContainingFieldLength() {
+        Note text = fixture.note("in text", new Date());
+        Note topic = Note.of(fixture.marker() + " in a longer text", new Date());
+        topic.setTopic(fixture.marker());
+        store.createModel(topic);
+        Note other = fixture.note("", new Date());
+        Map<Long, Integer> found = store.findNotesContaining(
+                Arrays.asList(text.getId(), topic.getId(), other.getId()), fixture.marker() + " in");
+        assertThat(found.size(), is(2));
+        assertThat(found.get(text.getId()), is(text.getText().length()));
+        assertThat(found.get(topic.getId()), is(topic.getText().length()));
+        assertThat(store.findNotesContaining(Arrays.asList(text.getId(), topic.getId()), fixture.marker()).get(
+                topic.getId()), is(topic.getTopic().length()));
+    }
+
+    /**
+     * The method check every search of substring finds exactly passed note.
+     * @param str Substring.
+     * @param expected The only note containing it.
+     */
+    private void assertFound(String str, Note expected) {
+        assertThat(ids(store.findNotesWithTextContain(str, Keyset.first(10, "asc"), Note.class).getItems()),
+                contains(expected.getId()));
+        assertThat(ids(store.findNotesWithTextContainByRelevance(str, 10, Note.class)), contains(expected.getId()));
+        assertThat(ids(store.findNotes(NoteFilter.none().containing(str), Keyset.first(10, "asc"), Note.class)
+                .getItems()), contains(expected.getId()));
+    }
+
+    private static List<Long> ids(List<Note> notes) {
+        List<Long> rsl = new ArrayList<>();
+        for (Note note : notes) {
+            rsl.add(note.getId());
+        }
+        return rsl;
+    }
+}
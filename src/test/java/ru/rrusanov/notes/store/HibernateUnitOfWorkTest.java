@@ -0,0 +1,101 @@
+package ru.rrusanov.notes.store;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.rrusanov.notes.domain.Note;
+
+import javax.sql.DataSource;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Store calls made inside a unit of work share its session and transaction,
+ * a failure of the work rolls back every change made in it.
+ */
+@SpringBootTest
+class HibernateUnitOfWorkTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    /**
+     * Names of commit and rollback calls on JDBC connections.
+     */
+    private final List<String> completions = new CopyOnWriteArrayList<>();
+
+    private Hibernate store;
+
+    private NoteFixture fixture;
+
+    @BeforeEach
+    void init() {
+        store = new Hibernate(
+                ProxyDataSourceBuilder.create(dataSource)
+                        .afterMethod(context -> {
+                            String method = context.getMethod().getName();
+                            if ("commit".equals(method) || "rollback".equals(method)) {
+                                completions.add(method);
+                            }
+                        })
+                        .build(),
+                new TagCache(100)
+        );
+        fixture = new NoteFixture(store);
+        completions.clear();
+    }
+
+    @AfterEach
+    void clean() {
+        fixture.clean();
+        store.close();
+    }
+
+    @Test
+    void whenNestedCallsThenOneSessionAndTransaction() {
+        Note[] found = new Note[2];
+        store.unitOfWork(() -> {
+            Note note = fixture.note("", new Date());
+            found[0] = store.findNoteById(note.getId());
+            found[1] = store.findNoteById(note.getId());
+            found[1].setTopic("changed");
+            store.updateNote(found[1]);
+            return found[1];
+        });
+        assertThat(found[0], is(sameInstance(found[1])));
+        assertThat(completions, contains("commit"));
+        assertThat(store.findNoteById(found[0].getId()).getTopic(), is("changed"));
+        assertThat(completions, contains("commit", "commit"));
+    }
+
+    @Test
+    void whenWorkFailsThenEarlierWritesRolledBack() {
+        StoreListener listener = mock(StoreListener.class);
+        store.addListener(listener);
+        Note[] created = new Note[1];
+        assertThrows(IllegalStateException.class, () -> store.unitOfWork(() -> {
+            created[0] = fixture.note("", new Date());
+            store.updateNote(created[0]);
+            throw new IllegalStateException("rollback");
+        }));
+        assertThat(completions, contains("rollback"));
+        assertThat(store.findNoteById(created[0].getId()), is(nullValue()));
+        verify(listener, never()).noteCreated(any());
+        verify(listener, never()).noteUpdated(any(), any());
+    }
+}
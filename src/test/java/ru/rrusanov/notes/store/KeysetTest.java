@@ -0,0 +1,62 @@
+package ru.rrusanov.notes.store;
+
+import org.junit.jupiter.api.Test;
+import ru.rrusanov.notes.domain.Note;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Positions of pages are passed to clients as opaque cursors and restored from them.
+ */
+class KeysetTest {
+
+    @Test
+    void whenCursorRestoredThenSamePosition() {
+        for (String order : new String[] {"asc", "desc"}) {
+            Keyset next = Keyset.first(20, order).after(note(42L, 1_600_000_000_123L));
+            Keyset restored = Keyset.fromCursor(next.toCursor(), 20);
+            assertThat(restored, is(next));
+            assertThat(restored.isDescending(), is("desc".equals(order)));
+            assertThat(restored.follows(new Date(1_600_000_000_123L), 43L), is(!restored.isDescending()));
+            assertThat(restored.follows(new Date(1_600_000_000_123L), 42L), is(false));
+        }
+    }
+
+    @Test
+    void whenCursorRestoredThenOrderOfCursorAndPassedLimit() {
+        Keyset restored = Keyset.fromCursor(Keyset.first(10, "DESC").after(note(1L, 0L)).toCursor(), 5000);
+        assertThat(restored.isDescending(), is(true));
+        assertThat(restored.getLimit(), is(Keyset.MAX_LIMIT));
+    }
+
+    @Test
+    void whenCursorMalformedThenRefused() {
+        for (String cursor : new String[] {"%%%", "", encode("asc:1"), encode("asc:x:1"),
+                encode("up:1:1"), encode("asc:1:1:1")}) {
+            assertThrows(InvalidRequestException.class, () -> Keyset.fromCursor(cursor, 10), cursor);
+        }
+    }
+
+    @Test
+    void whenLimitOrOrderWrongThenRefused() {
+        assertThrows(InvalidRequestException.class, () -> Keyset.first(0, "asc"));
+        assertThrows(InvalidRequestException.class, () -> Keyset.first(10, "random"));
+        assertThat(Keyset.first(10, "asc").getLimit(), is(10));
+    }
+
+    private static Note note(Long id, long time) {
+        Note note = Note.of("text", new Date(time));
+        note.setId(id);
+        return note;
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
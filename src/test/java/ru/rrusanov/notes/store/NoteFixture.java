@@ -0,0 +1,84 @@
+package ru.rrusanov.notes.store;
+
+import ru.rrusanov.notes.domain.HashTag;
+import ru.rrusanov.notes.domain.Note;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Notes and tags of one test in the shared test database. Text of every note and title
+ * of every tag start with a marker unique to the fixture, so the test finds only its own
+ * rows and {@link #clean} removes them through the store, listeners of the store included.
+ */
+public class NoteFixture {
+
+    private final Hibernate store;
+
+    private final String marker = "fixture" + UUID.randomUUID().toString().replace("-", "");
+
+    /**
+     * @param store Store the notes are created by.
+     */
+    public NoteFixture(Hibernate store) {
+        this.store = store;
+    }
+
+    /**
+     * @return Word contained in text of every note of the fixture, usable in urls.
+     */
+    public String marker() {
+        return marker;
+    }
+
+    /**
+     * The method persist note with text made of the marker and passed text.
+     * @param text Rest of text, may be empty.
+     * @param date Date of creation.
+     * @param tags Persisted tags of the note.
+     * @return Persisted note.
+     */
+    public Note note(String text, Date date, HashTag... tags) {
+        Note note = Note.of(text.isEmpty() ? marker : marker + " " + text, date);
+        note.setHashTag(new ArrayList<>(Arrays.asList(tags)));
+        return store.createModel(note);
+    }
+
+    /**
+     * The method resolve tags with titles made of the marker and passed names, missing ones are created.
+     * @param names Tag names.
+     * @return Persisted tags in order of names.
+     */
+    public List<HashTag> tags(String... names) {
+        List<HashTag> tags = new ArrayList<>();
+        for (String name : names) {
+            tags.add(HashTag.of(null, this.title(name)));
+        }
+        return store.resolveTags(tags);
+    }
+
+    /**
+     * @param name Tag name.
+     * @return Title of the tag of the fixture.
+     */
+    public String title(String name) {
+        return marker + "-" + name;
+    }
+
+    /**
+     * @return Filter matching notes of the fixture.
+     */
+    public NoteFilter filter() {
+        return NoteFilter.none().containing(marker);
+    }
+
+    /**
+     * The method delete all notes of the fixture, created by the store or through the API.
+     */
+    public void clean() {
+        store.deleteNotes(this.filter(), Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,116 @@
+package ru.rrusanov.notes.store;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.junit.jupiter.api.Test;
+import ru.rrusanov.notes.domain.jsonmapper.SlowQuery;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Statements are passed to the listener directly with execution time set by the test.
+ */
+class SlowQueryLogTest {
+
+    private final SlowQueryLog log = new SlowQueryLog(Duration.ofMillis(100), 3, 0);
+
+    @Test
+    void whenFasterThanThresholdThenNotCaptured() {
+        execute("select 1", 99);
+        assertThat(log.slowQueries(), is(empty()));
+        execute("select 2", 100);
+        assertThat(queries(), contains("select 2"));
+    }
+
+    @Test
+    void whenLessThanCapacityThenLatestFirst() {
+        execute("select 1", 100);
+        execute("select 2", 200);
+        assertThat(queries(), contains("select 2", "select 1"));
+        assertThat(log.slowQueries().get(0).getDuration(), is(200L));
+    }
+
+    @Test
+    void whenBufferWrapsThenOldestOverwritten() {
+        for (int i = 1; i <= 7; i++) {
+            execute("select " + i, 150);
+        }
+        assertThat(queries(), contains("select 7", "select 6", "select 5"));
+        execute("select 8", 150);
+        assertThat(queries(), contains("select 8", "select 7", "select 6"));
+    }
+
+    @Test
+    void whenParametersBoundThenKeptInIndexOrderAndCut() throws Exception {
+        QueryInfo info = new QueryInfo("select ? ? ? ? ? ? ? ? ? ? ?");
+        List<ParameterSetOperation> operations = new ArrayList<>();
+        for (int i = 11; i >= 2; i--) {
+            operations.add(set("setString", i, "v" + i));
+        }
+        operations.add(new ParameterSetOperation(
+                PreparedStatement.class.getMethod("setNull", int.class, int.class), new Object[] {1, 0}));
+        info.getParametersList().add(operations);
+        execute(info, 300);
+        List<String> values = log.slowQueries().get(0).getParameters().get(0);
+        assertThat(values.get(0), is(nullValue()));
+        assertThat(values.subList(1, 11),
+                is(Arrays.asList("v2", "v3", "v4", "v5", "v6", "v7", "v8", "v9", "v10", "v11")));
+        QueryInfo longText = new QueryInfo("insert into note(text) values (?)");
+        longText.getParametersList().add(Collections.singletonList(set("setString", 1, repeat('x', 500))));
+        execute(longText, 300);
+        assertThat(log.slowQueries().get(0).getParameters().get(0).get(0), is(repeat('x', 200) + "..."));
+    }
+
+    @Test
+    void whenSampleOutOfRangeThenRefused() {
+        assertThrows(InvalidRequestException.class, () -> log.setSample(1.5));
+        assertThrows(InvalidRequestException.class, () -> log.setSample(-0.1));
+        assertThrows(InvalidRequestException.class, () -> log.setSample(Double.NaN));
+        log.setSample(0.5);
+        assertThat(log.getSample(), is(0.5));
+        assertThrows(IllegalArgumentException.class, () -> new SlowQueryLog(Duration.ZERO, 0, 0));
+    }
+
+    private void execute(String sql, long elapsed) {
+        execute(new QueryInfo(sql), elapsed);
+    }
+
+    private void execute(QueryInfo info, long elapsed) {
+        ExecutionInfo exec = new ExecutionInfo();
+        exec.setElapsedTime(elapsed);
+        exec.setSuccess(true);
+        log.afterQuery(exec, Collections.singletonList(info));
+    }
+
+    private List<String> queries() {
+        List<String> rsl = new ArrayList<>();
+        for (SlowQuery query : log.slowQueries()) {
+            rsl.add(query.getSql());
+        }
+        return rsl;
+    }
+
+    private static ParameterSetOperation set(String method, int index, String value) throws Exception {
+        return new ParameterSetOperation(
+                PreparedStatement.class.getMethod(method, int.class, String.class), new Object[] {index, value});
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
@@ -0,0 +1,102 @@
+package ru.rrusanov.notes.store;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * Meters of store operations recorded to a simple registry.
+ */
+class StoreMetricsTest {
+
+    private final StoreMetrics metrics = new StoreMetrics();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void whenCalledThenTimerOfOutcomeRecorded() {
+        metrics.bindTo(registry);
+        StoreMetrics.Operation operation = metrics.operation("findNotes", null);
+        operation.called(TimeUnit.MILLISECONDS.toNanos(5), Collections.emptyList(), false);
+        operation.called(TimeUnit.MILLISECONDS.toNanos(7), Collections.emptyList(), false);
+        operation.called(TimeUnit.MILLISECONDS.toNanos(3), null, true);
+        Timer success = call("findNotes", "success");
+        assertThat(success.count(), is(2L));
+        assertThat(success.totalTime(TimeUnit.MILLISECONDS), is(12.0));
+        assertThat(call("findNotes", "error").count(), is(1L));
+        assertThat(registry.find("notes.store.operation").tag("operation", "other").timer(), is(nullValue()));
+    }
+
+    @Test
+    void whenResultReturnedThenRowsRecorded() {
+        metrics.bindTo(registry);
+        StoreMetrics.Operation operation = metrics.operation("findNotes", null);
+        operation.called(1, Arrays.asList(1L, 2L, 3L), false);
+        operation.called(1, new Page<>(Arrays.asList(1L, 2L), null), false);
+        operation.called(1, 4, false);
+        operation.called(1, "not counted", false);
+        DistributionSummary rows = registry.get("notes.store.rows").tag("operation", "findNotes").summary();
+        assertThat(rows.count(), is(3L));
+        assertThat(rows.totalAmount(), is(9.0));
+        assertThat(rows.max(), is(4.0));
+    }
+
+    @Test
+    void whenTransactionCompletedThenResultAndAcquireRecorded() {
+        metrics.bindTo(registry);
+        StoreMetrics.Operation operation = metrics.operation("createModel", null);
+        operation.acquired(TimeUnit.MILLISECONDS.toNanos(1));
+        operation.completed(TimeUnit.MILLISECONDS.toNanos(10), true);
+        operation.completed(TimeUnit.MILLISECONDS.toNanos(20), false);
+        operation.completed(TimeUnit.MILLISECONDS.toNanos(30), false);
+        assertThat(transaction("createModel", "commit").count(), is(1L));
+        assertThat(transaction("createModel", "rollback").count(), is(2L));
+        assertThat(transaction("createModel", "rollback").totalTime(TimeUnit.MILLISECONDS), is(50.0));
+        assertThat(registry.get("notes.store.connection.acquire").tag("operation", "createModel").timer().count(),
+                is(1L));
+    }
+
+    @Test
+    void whenRegistryBoundLaterThenEarlierOperationsRecorded() {
+        StoreMetrics.Operation operation = metrics.operation("findNotes", null);
+        operation.called(1, null, true);
+        metrics.bindTo(registry);
+        operation.called(1, null, true);
+        assertThat(call("findNotes", "error").count(), is(1L));
+        assertThat(metrics.operation("findNotes", null), is(sameInstance(operation)));
+    }
+
+    @Test
+    void whenCalledFromEndpointsThenMetersTaggedByEndpoint() {
+        metrics.bindTo(registry);
+        metrics.operation("findNoteById", "GET /note/{id}").called(1, null, false);
+        metrics.operation("findNoteById", "PUT /note/").called(1, null, false);
+        metrics.operation("findNoteById", "PUT /note/").called(1, null, false);
+        metrics.operation("findNoteById", null).called(1, null, false);
+        assertThat(registry.get("notes.store.operation").tag("operation", "findNoteById").timers().size(), is(6));
+        assertThat(registry.get("notes.store.operation").tags("endpoint", "PUT /note/", "outcome", "success")
+                .timer().count(), is(2L));
+        assertThat(registry.get("notes.store.operation").tags("endpoint", "none", "outcome", "success")
+                .timer().count(), is(1L));
+        assertThat(metrics.operation("findNoteById", "PUT /note/"),
+                is(sameInstance(metrics.operation("findNoteById", "PUT /note/"))));
+    }
+
+    private Timer call(String operation, String outcome) {
+        return registry.get("notes.store.operation").tags("operation", operation, "outcome", outcome).timer();
+    }
+
+    private Timer transaction(String operation, String result) {
+        return registry.get("notes.store.transaction").tags("operation", operation, "result", result).timer();
+    }
+}
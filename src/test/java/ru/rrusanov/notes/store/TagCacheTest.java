@@ -0,0 +1,84 @@
+package ru.rrusanov.notes.store;
+
+import org.junit.jupiter.api.Test;
+import ru.rrusanov.notes.domain.HashTag;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * Lookups of cached tags by id and by title, copies handed out and the size bound.
+ */
+class TagCacheTest {
+
+    private final TagCache cache = new TagCache(10);
+
+    @Test
+    void whenPutThenHitByIdAndByTitle() {
+        cache.put(HashTag.of(1L, "java"));
+        assertThat(cache.findById(1L).getTitle(), is("java"));
+        assertThat(cache.findByTitle("java").getId(), is(1L));
+        assertThat(cache.idStats().hitCount(), is(1L));
+        assertThat(cache.titleStats().hitCount(), is(1L));
+    }
+
+    @Test
+    void whenNotPutThenMissByIdAndByTitle() {
+        cache.put(HashTag.of(1L, "java"));
+        assertThat(cache.findById(2L), is(nullValue()));
+        assertThat(cache.findByTitle("sql"), is(nullValue()));
+        assertThat(cache.findById(null), is(nullValue()));
+        assertThat(cache.findByTitle(null), is(nullValue()));
+        assertThat(cache.idStats().missCount(), is(1L));
+        assertThat(cache.titleStats().missCount(), is(1L));
+    }
+
+    @Test
+    void whenTagWithoutTitlePutThenFoundByIdOnly() {
+        cache.put(HashTag.of(1L, null));
+        assertThat(cache.findById(1L).getId(), is(1L));
+        assertThat(cache.titleStats().requestCount(), is(0L));
+    }
+
+    @Test
+    void whenFoundThenCopyReturned() {
+        HashTag put = HashTag.of(1L, "java");
+        cache.put(put);
+        put.setTitle("changed after put");
+        HashTag found = cache.findById(1L);
+        assertThat(found.getTitle(), is("java"));
+        found.setTitle("changed after find");
+        assertThat(cache.findById(1L).getTitle(), is("java"));
+        assertThat(cache.findByTitle("java").getTitle(), is("java"));
+        assertThat(cache.findById(1L), is(not(sameInstance(cache.findById(1L)))));
+    }
+
+    @Test
+    void whenMoreTagsThanMaximumThenEvicted() {
+        for (long id = 0; id < 100; id++) {
+            cache.put(HashTag.of(id, "tag" + id));
+        }
+        int cached = 0;
+        for (long id = 0; id < 100; id++) {
+            if (cache.findById(id) != null) {
+                cached++;
+            }
+        }
+        assertThat(cached, is(lessThanOrEqualTo(10)));
+        assertThat(cache.idStats().evictionCount(), is(greaterThan(0L)));
+        assertThat(cache.titleStats().evictionCount(), is(greaterThan(0L)));
+    }
+
+    @Test
+    void whenClearedThenMiss() {
+        cache.put(HashTag.of(1L, "java"));
+        cache.clear();
+        assertThat(cache.findById(1L), is(nullValue()));
+        assertThat(cache.findByTitle("java"), is(nullValue()));
+    }
+}
@@ -0,0 +1,149 @@
+package ru.rrusanov.notes.store;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.rrusanov.notes.domain.HashTag;
+import ru.rrusanov.notes.domain.Note;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Index is built from links of a mocked store: note 1 has tags 10 and 20, note 2 has 10,
+ * note 3 has 20 and 30, note 4 has no tags.
+ */
+class TagIndexTest {
+
+    private static final List<Long> NO = Collections.emptyList();
+
+    private final TagIndex index = new TagIndex();
+
+    @BeforeEach
+    void init() {
+        Hibernate store = mock(Hibernate.class);
+        doAnswer(invocation -> {
+            BiConsumer<Long, Long> links = invocation.getArgument(0);
+            links.accept(1L, 10L);
+            links.accept(1L, 20L);
+            links.accept(2L, 10L);
+            links.accept(3L, 20L);
+            links.accept(3L, 30L);
+            links.accept(4L, null);
+            return null;
+        }).when(store).forEachNoteTagLink(any());
+        index.build(store);
+    }
+
+    @Test
+    void whenNoConditionThenAllNotes() {
+        assertThat(ids(NO, NO, NO), contains(1L, 2L, 3L, 4L));
+    }
+
+    @Test
+    void whenAllTagsThenIntersection() {
+        assertThat(ids(list(10L), NO, NO), contains(1L, 2L));
+        assertThat(ids(list(10L, 20L), NO, NO), contains(1L));
+        assertThat(ids(list(10L, 30L), NO, NO), is(empty()));
+        assertThat(ids(list(10L, 99L), NO, NO), is(empty()));
+    }
+
+    @Test
+    void whenAnyTagsThenUnion() {
+        assertThat(ids(NO, list(10L, 30L), NO), contains(1L, 2L, 3L));
+        assertThat(ids(NO, list(99L), NO), is(empty()));
+        assertThat(ids(NO, list(30L, 99L), NO), contains(3L));
+    }
+
+    @Test
+    void whenNoneTagsThenDifference() {
+        assertThat(ids(NO, NO, list(10L)), contains(3L, 4L));
+        assertThat(ids(NO, NO, list(10L, 20L)), contains(4L));
+        assertThat(ids(NO, NO, list(99L)), contains(1L, 2L, 3L, 4L));
+    }
+
+    @Test
+    void whenCombinedThenAllConditionsHold() {
+        assertThat(ids(list(20L), list(10L, 30L), NO), contains(1L, 3L));
+        assertThat(ids(list(20L), NO, list(30L)), contains(1L));
+        assertThat(ids(NO, list(10L, 20L), list(30L)), contains(1L, 2L));
+        assertThat(ids(list(10L), list(20L), list(20L)), is(empty()));
+    }
+
+    @Test
+    void whenPagedThenNextAfterLastIdAndTotalOfAllPages() {
+        TagIndex.IdPage first = index.search(NO, NO, NO, null, 3);
+        assertThat(first.getIds(), contains(1L, 2L, 3L));
+        assertThat(first.getNext(), is(3L));
+        assertThat(first.getTotal(), is(4L));
+        TagIndex.IdPage last = index.search(NO, NO, NO, first.getNext(), 3);
+        assertThat(last.getIds(), contains(4L));
+        assertThat(last.getNext(), is(nullValue()));
+        assertThat(index.search(NO, NO, NO, null, 4).getNext(), is(nullValue()));
+    }
+
+    @Test
+    void whenCountThenNotesPerTagInPassedOrder() {
+        assertThat(index.count(list(30L, 10L, 99L)).entrySet().toString(), is("[30=1, 10=2, 99=0]"));
+    }
+
+    @Test
+    void whenNoteCreatedThenIndexed() {
+        index.noteCreated(note(5L, 30L));
+        assertThat(ids(list(30L), NO, NO), contains(3L, 5L));
+        assertThat(ids(NO, NO, NO), contains(1L, 2L, 3L, 4L, 5L));
+    }
+
+    @Test
+    void whenNoteUpdatedThenTagsMoved() {
+        index.noteUpdated(note(2L, 10L), note(2L, 30L, 40L));
+        assertThat(ids(list(10L), NO, NO), contains(1L));
+        assertThat(ids(list(30L, 40L), NO, NO), contains(2L));
+        assertThat(index.count(list(40L)).get(40L), is(1L));
+    }
+
+    @Test
+    void whenNoteDeletedThenRemovedFromAllBitmaps() {
+        index.noteDeleted(note(3L, 20L, 30L));
+        assertThat(ids(NO, NO, NO), contains(1L, 2L, 4L));
+        assertThat(ids(list(20L), NO, NO), contains(1L));
+        assertThat(index.count(list(30L)).get(30L), is(0L));
+    }
+
+    @Test
+    void whenNotesRetaggedThenBitmapOfTagChanged() {
+        index.notesRetagged(30L, list(2L, 4L), true);
+        assertThat(ids(list(30L), NO, NO), contains(2L, 3L, 4L));
+        index.notesRetagged(10L, list(1L, 2L), false);
+        assertThat(ids(NO, list(10L), NO), is(empty()));
+        assertThat(index.count(list(10L, 30L)).entrySet().toString(), is("[10=0, 30=3]"));
+    }
+
+    private List<Long> ids(List<Long> all, List<Long> any, List<Long> none) {
+        return index.search(all, any, none, null, 100).getIds();
+    }
+
+    private static List<Long> list(Long... ids) {
+        return Arrays.asList(ids);
+    }
+
+    private static Note note(Long id, Long... tags) {
+        Note note = Note.of("text", new Date());
+        note.setId(id);
+        for (Long tag : tags) {
+            note.addHashTag(HashTag.of(tag, null));
+        }
+        return note;
+    }
+}
@@ -0,0 +1,91 @@
+package ru.rrusanov.notes.store;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.rrusanov.notes.domain.HashTag;
+import ru.rrusanov.notes.domain.Note;
+import ru.rrusanov.notes.domain.jsonmapper.TagStat;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Counters are changed by listener callbacks and corrected by DB counts of a mocked store.
+ */
+class TagStatsTest {
+
+    private static final HashTag JAVA = HashTag.of(1L, "java");
+
+    private static final HashTag SQL = HashTag.of(2L, "sql");
+
+    private final TagStats stats = new TagStats();
+
+    private final Hibernate store = mock(Hibernate.class);
+
+    @BeforeEach
+    void init() {
+        when(store.countNotesByTag())
+                .thenReturn(Arrays.asList(TagStat.of(1L, "java", 5L), TagStat.of(2L, "sql", 2L)));
+        stats.reconcile(store);
+    }
+
+    @Test
+    void whenReconciledThenCountsOfDbMostUsedFirst() {
+        assertThat(stats.stats(), contains(TagStat.of(1L, "java", 5L), TagStat.of(2L, "sql", 2L)));
+        assertThat(stats.count(3L), is(0L));
+    }
+
+    @Test
+    void whenNotesChangedThenCountersFollow() {
+        stats.noteCreated(note(JAVA, SQL));
+        assertThat(stats.count(1L), is(6L));
+        assertThat(stats.count(2L), is(3L));
+        stats.noteUpdated(note(JAVA, SQL), note(SQL));
+        assertThat(stats.count(1L), is(5L));
+        assertThat(stats.count(2L), is(3L));
+        stats.noteDeleted(note(SQL));
+        assertThat(stats.count(2L), is(2L));
+        stats.notesRetagged(2L, Arrays.asList(10L, 11L, 12L), true);
+        assertThat(stats.count(2L), is(5L));
+        stats.notesRetagged(1L, Collections.singletonList(10L), false);
+        assertThat(stats.count(1L), is(4L));
+    }
+
+    @Test
+    void whenTagCreatedThenCountedWithZeroNotes() {
+        stats.tagCreated(HashTag.of(3L, "kotlin"));
+        assertThat(stats.stats().get(2), is(TagStat.of(3L, "kotlin", 0L)));
+    }
+
+    @Test
+    void whenCountersDriftThenReconcileSetsDbCounts() {
+        stats.noteCreated(note(JAVA));
+        stats.noteCreated(note(JAVA));
+        stats.reconcile(store);
+        assertThat(stats.count(1L), is(5L));
+    }
+
+    @Test
+    void whenNoteCommittedWhileDbCountsReadThenItIsKept() {
+        when(store.countNotesByTag()).thenAnswer(invocation -> {
+            stats.noteCreated(note(JAVA));
+            return Arrays.asList(TagStat.of(1L, "java", 5L), TagStat.of(2L, "sql", 2L));
+        });
+        stats.reconcile(store);
+        assertThat(stats.count(1L), is(6L));
+        assertThat(stats.count(2L), is(2L));
+    }
+
+    private static Note note(HashTag... tags) {
+        Note note = Note.of("text", new Date());
+        note.setHashTag(Arrays.asList(tags));
+        return note;
+    }
+}
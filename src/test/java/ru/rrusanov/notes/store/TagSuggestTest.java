@@ -0,0 +1,124 @@
+package ru.rrusanov.notes.store;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.rrusanov.notes.domain.HashTag;
+import ru.rrusanov.notes.domain.Note;
+import ru.rrusanov.notes.domain.jsonmapper.TagStat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Titles are loaded from a mocked store, numbers of notes are taken from tag counters.
+ */
+class TagSuggestTest {
+
+    private final TagStats stats = new TagStats();
+
+    private final TagSuggest suggest = new TagSuggest(stats);
+
+    @BeforeEach
+    void init() {
+        Hibernate store = mock(Hibernate.class);
+        when(store.findAllTags()).thenReturn(Arrays.asList(
+                HashTag.of(1L, "Java"), HashTag.of(2L, "javascript"), HashTag.of(3L, "JAX"),
+                HashTag.of(4L, "kotlin"), HashTag.of(5L, "Котлин"), HashTag.of(6L, "ja")));
+        suggest.build(store);
+        notes(2L, 3);
+        notes(1L, 2);
+        notes(6L, 1);
+    }
+
+    @Test
+    void whenPrefixThenOnlyTitlesStartingWithItMostUsedFirst() {
+        assertThat(titles("ja", 10), contains("javascript", "Java", "ja", "JAX"));
+        assertThat(titles("jav", 10), contains("javascript", "Java"));
+        assertThat(titles("java", 10), contains("javascript", "Java"));
+        assertThat(titles("javas", 10), contains("javascript"));
+        assertThat(titles("jaz", 10), is(empty()));
+        assertThat(titles("a", 10), is(empty()));
+        assertThat(titles("zzz", 10), is(empty()));
+    }
+
+    @Test
+    void whenPrefixInOtherCaseThenFound() {
+        assertThat(titles("JAV", 10), contains("javascript", "Java"));
+        assertThat(titles("Jax", 10), contains("JAX"));
+        assertThat(titles("КОТ", 10), contains("Котлин"));
+    }
+
+    @Test
+    void whenLimitThenMostUsedKept() {
+        assertThat(titles("ja", 2), contains("javascript", "Java"));
+        assertThat(titles("ja", 1), contains("javascript"));
+    }
+
+    @Test
+    void whenEmptyPrefixThenRejected() {
+        assertThrows(InvalidRequestException.class, () -> suggest.suggest("", 10));
+        List<TagStat> top = suggest.suggest("j", 1);
+        assertThat(top, contains(TagStat.of(2L, "javascript", 3L)));
+    }
+
+    @Test
+    void whenTagCreatedThenSuggested() {
+        suggest.tagCreated(HashTag.of(7L, "Jakarta"));
+        suggest.tagCreated(HashTag.of(7L, "Jakarta"));
+        assertThat(titles("jak", 10), contains("Jakarta"));
+        assertThat(titles("ja", 10), contains("javascript", "Java", "ja", "JAX", "Jakarta"));
+    }
+
+    @Test
+    void whenNoteCreatedOrUpdatedWithNewTagThenSuggested() {
+        Note note = Note.of("text", new Date());
+        note.addHashTag(HashTag.of(8L, "kafka"));
+        suggest.noteCreated(note);
+        Note updated = Note.of("text", new Date());
+        updated.addHashTag(HashTag.of(9L, "kubernetes"));
+        suggest.noteUpdated(note, updated);
+        assertThat(titles("k", 10), contains("kafka", "kotlin", "kubernetes"));
+    }
+
+    @Test
+    void whenSeveralTagsAddedAtOnceThenMergedInOrder() {
+        Note note = Note.of("text", new Date());
+        note.addHashTag(HashTag.of(12L, "Kubernetes"));
+        note.addHashTag(HashTag.of(10L, "jakarta"));
+        note.addHashTag(HashTag.of(11L, "aaa"));
+        note.addHashTag(HashTag.of(4L, "kotlin"));
+        note.addHashTag(HashTag.of(13L, "zzz"));
+        note.addHashTag(HashTag.of(10L, "jakarta"));
+        suggest.noteCreated(note);
+        assertThat(titles("a", 10), contains("aaa"));
+        assertThat(titles("ja", 10), contains("javascript", "Java", "ja", "JAX", "jakarta"));
+        assertThat(titles("k", 10), contains("Kubernetes", "kotlin"));
+        assertThat(titles("z", 10), contains("zzz"));
+    }
+
+    private void notes(Long tagId, int count) {
+        for (int i = 0; i < count; i++) {
+            Note note = Note.of("text", new Date());
+            note.addHashTag(HashTag.of(tagId, null));
+            stats.noteCreated(note);
+        }
+    }
+
+    private List<String> titles(String prefix, int limit) {
+        List<String> rsl = new ArrayList<>();
+        for (TagStat stat : suggest.suggest(prefix, limit)) {
+            rsl.add(stat.getTitle());
+        }
+        return rsl;
+    }
+}
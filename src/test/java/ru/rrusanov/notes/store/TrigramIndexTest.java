@@ -0,0 +1,214 @@
+package ru.rrusanov.notes.store;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.rrusanov.notes.domain.Note;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Index is built from notes of a mocked store scanned by id ranges in parallel,
+ * its candidates are verified against current notes of the store.
+ */
+class TrigramIndexTest {
+
+    private final List<Note> notes = new ArrayList<>(Arrays.asList(
+            note(1L, "first java note", 3), note(2L, "second note", 1), note(3L, "java and sql", 2),
+            note(4L, "note without date", -1), note(5L, "java", 5), note(6L, "last note", 4)));
+
+    /**
+     * Notes committed to store, changed by tests after the build scan.
+     */
+    private final Map<Long, Note> committed = new ConcurrentHashMap<>();
+
+    private final Hibernate store = mock(Hibernate.class);
+
+    private final TrigramIndex index = new TrigramIndex(store);
+
+    @BeforeEach
+    void init() {
+        for (Note note : notes) {
+            committed.put(note.getId(), note);
+        }
+        when(store.findNotesContaining(anyList(), anyString())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            String str = invocation.getArgument(1);
+            Map<Long, Integer> rsl = new HashMap<>();
+            for (Long id : ids) {
+                Note note = committed.get(id);
+                if (note != null && note.getText().contains(str)) {
+                    rsl.put(id, note.getText().length());
+                }
+            }
+            return rsl;
+        });
+    }
+
+    @Test
+    void whenQueryShorterThanThreeCharsThenNotSupported() {
+        assertThat(index.supports(""), is(false));
+        assertThat(index.supports("ja"), is(false));
+        assertThat(index.supports("jav"), is(true));
+    }
+
+    @Test
+    void whenBuiltThenSubstringFoundInDateOrder() {
+        build(null);
+        assertThat(index.size(), is(6));
+        assertThat(index.search("java", Keyset.first(10, "asc")).getItems(), contains(3L, 1L, 5L));
+        assertThat(index.search("java", Keyset.first(10, "desc")).getItems(), contains(5L, 1L, 3L));
+        assertThat(index.search("va a", Keyset.first(10, "asc")).getItems(), contains(3L));
+        assertThat(index.search("Java", Keyset.first(10, "asc")).getItems(), is(empty()));
+        assertThat(index.search("xyz", Keyset.first(10, "asc")).getItems(), is(empty()));
+    }
+
+    @Test
+    void whenNoteWithoutDateThenFoundByRelevanceOnly() {
+        build(null);
+        assertThat(index.search("without", Keyset.first(10, "asc")).getItems(), is(empty()));
+        assertThat(index.searchByRelevance("without", 10), contains(4L));
+    }
+
+    @Test
+    void whenPagedThenEveryNoteOnceInOrder() {
+        build(null);
+        for (String order : new String[] {"asc", "desc"}) {
+            List<Long> ids = new ArrayList<>();
+            Page<Long> page = index.search("note", Keyset.first(2, order));
+            ids.addAll(page.getItems());
+            while (page.getNext() != null) {
+                page = index.search("note", page.getNext());
+                ids.addAll(page.getItems());
+            }
+            List<Long> all = index.search("note", Keyset.first(10, order)).getItems();
+            assertThat(ids, is(all));
+            assertThat(all.size(), is(3));
+        }
+        Page<Long> last = index.search("note", Keyset.first(3, "asc"));
+        assertThat(last.getNext(), is(nullValue()));
+    }
+
+    @Test
+    void whenRelevanceThenShortestCoveringFirst() {
+        build(null);
+        assertThat(index.searchByRelevance("java", 10), contains(5L, 3L, 1L));
+        assertThat(index.searchByRelevance("java", 1), contains(5L));
+    }
+
+    @Test
+    void whenNotesChangedThenIndexFollows() {
+        build(null);
+        update(notes.get(0), note(1L, "first kotlin note", 3));
+        delete(notes.get(4));
+        create(note(7L, "java again", 6));
+        assertThat(index.search("java", Keyset.first(10, "asc")).getItems(), contains(3L, 7L));
+        assertThat(index.search("kotlin", Keyset.first(10, "asc")).getItems(), contains(1L));
+        assertThat(index.size(), is(6));
+    }
+
+    @Test
+    void whenNotesChangedDuringBuildThenChangesKept() {
+        build(() -> {
+            delete(notes.get(2));
+            update(notes.get(5), note(6L, "last java note", 4));
+            create(note(7L, "java again", 6));
+        });
+        assertThat(index.search("java", Keyset.first(10, "asc")).getItems(), contains(1L, 6L, 5L, 7L));
+        assertThat(index.search("sql", Keyset.first(10, "asc")).getItems(), is(empty()));
+        assertThat(index.size(), is(6));
+    }
+
+    @Test
+    void whenNoteCreatedBeforeBuildThenIdsKeptSorted() {
+        create(note(7L, "java again", 6));
+        build(null);
+        assertThat(index.search("java", Keyset.first(10, "asc")).getItems(), contains(3L, 1L, 5L, 7L));
+    }
+
+    @Test
+    void whenCandidateHasTrigramsButNotSubstringThenSkipped() {
+        build(null);
+        create(note(7L, "lava jav", 6));
+        assertThat(index.search("java", Keyset.first(10, "asc")).getItems(), contains(3L, 1L, 5L));
+        assertThat(index.search("java", Keyset.first(3, "asc")).getNext(), is(nullValue()));
+        assertThat(index.searchByRelevance("java", 10), contains(5L, 3L, 1L));
+    }
+
+    @Test
+    void whenDeletedWithoutTextThenNotFound() {
+        build(null);
+        for (Note note : new ArrayList<>(notes)) {
+            Note deleted = new Note();
+            deleted.setId(note.getId());
+            delete(deleted);
+        }
+        create(note(7L, "java again", 6));
+        assertThat(index.size(), is(1));
+        assertThat(index.search("java", Keyset.first(10, "asc")).getItems(), contains(7L));
+        assertThat(index.search("note", Keyset.first(10, "asc")).getItems(), is(empty()));
+    }
+
+    /**
+     * The method build index from notes, the first scanned range runs passed changes.
+     * @param duringScan Changes made while notes are scanned or null.
+     */
+    private void build(Runnable duringScan) {
+        when(store.findNoteIdRange()).thenReturn(new long[] {1L, 6L});
+        doAnswer(invocation -> {
+            long from = invocation.getArgument(0);
+            long to = invocation.getArgument(1);
+            Consumer<Note> consumer = invocation.getArgument(2);
+            if (from == 1L && duringScan != null) {
+                duringScan.run();
+            }
+            for (Note note : notes) {
+                if (note.getId() >= from && note.getId() < to) {
+                    consumer.accept(note);
+                }
+            }
+            return null;
+        }).when(store).forEachNoteText(anyLong(), anyLong(), any());
+        index.build(2);
+    }
+
+    private void create(Note note) {
+        committed.put(note.getId(), note);
+        index.noteCreated(note);
+    }
+
+    private void update(Note before, Note after) {
+        committed.put(after.getId(), after);
+        index.noteUpdated(before, after);
+    }
+
+    private void delete(Note note) {
+        committed.remove(note.getId());
+        index.noteDeleted(note);
+    }
+
+    private static Note note(Long id, String text, int day) {
+        Note note = Note.of(text, day < 0 ? null : new Date(day * 86_400_000L));
+        note.setId(id);
+        return note;
+    }
+}